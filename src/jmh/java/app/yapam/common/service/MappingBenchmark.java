@@ -0,0 +1,133 @@
+package app.yapam.common.service;
+
+import app.yapam.common.repository.*;
+import app.yapam.file.model.File;
+import app.yapam.file.model.response.SimpleFileResponse;
+import app.yapam.secret.model.Secret;
+import app.yapam.secret.model.SecretTypeEnum;
+import app.yapam.secret.model.UserSecretPrivilege;
+import app.yapam.secret.model.response.SecretResponse;
+import app.yapam.secret.model.response.SimpleSecretResponse;
+import app.yapam.secret.model.response.SimpleUserPrivilegeResponse;
+import app.yapam.tag.model.Tag;
+import app.yapam.user.model.User;
+import app.yapam.user.model.response.SimpleUserResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.BeanUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"1", "10"})
+    private int relations;
+
+    private final MappingService mappingService = new MappingService();
+    private SecretDao secretDao;
+
+    @Setup
+    public void setup() {
+        secretDao = new SecretDao();
+        secretDao.setId("id");
+        secretDao.setSecretId("secretId");
+        secretDao.setTitle("title");
+        secretDao.setVersion(1);
+        secretDao.setType(SecretTypeEnum.LOGIN);
+        secretDao.setContent(new SecretDataDao("hash", "data"));
+        secretDao.setUsers(new ArrayList<>());
+        secretDao.setFiles(new ArrayList<>());
+        secretDao.setTags(new ArrayList<>());
+        for (int i = 0; i < relations; i++) {
+            var userDao = new UserDao();
+            userDao.setId("user" + i);
+            userDao.setName("name" + i);
+            userDao.setEmail("user" + i + "@yapam.app");
+            userDao.setLocale("en");
+            userDao.setCreationDate(LocalDateTime.now());
+            secretDao.getUsers().add(new UserSecretDao(secretDao, userDao, i == 0));
+
+            var fileDao = new FileDao();
+            fileDao.setId("file" + i);
+            fileDao.setFilename("file" + i + ".txt");
+            fileDao.setFilesize(1024L);
+            fileDao.setHash("hash" + i);
+            fileDao.setMimetype("text/plain");
+            secretDao.getFiles().add(fileDao);
+
+            var tagDao = new TagDao();
+            tagDao.setId("tag" + i);
+            tagDao.setName("tag" + i);
+            secretDao.getTags().add(tagDao);
+        }
+    }
+
+    @Benchmark
+    public SecretResponse beanUtilsSecretDaoToResponse() {
+        var secret = new Secret();
+        BeanUtils.copyProperties(secretDao, secret);
+        secret.setData(secretDao.getContent().getData());
+        List<UserSecretPrivilege> users = new ArrayList<>();
+        for (UserSecretDao userSecret : secretDao.getUsers()) {
+            var user = new User();
+            BeanUtils.copyProperties(userSecret.getUser(), user);
+            users.add(new UserSecretPrivilege(user, userSecret.getPrivileged()));
+        }
+        secret.setUsers(users);
+        List<File> files = new ArrayList<>();
+        for (FileDao fileDao : secretDao.getFiles()) {
+            var file = new File();
+            BeanUtils.copyProperties(fileDao, file);
+            files.add(file);
+        }
+        secret.setFiles(files);
+        List<Tag> tags = new ArrayList<>();
+        for (TagDao tagDao : secretDao.getTags()) {
+            var tag = new Tag();
+            BeanUtils.copyProperties(tagDao, tag);
+            tags.add(tag);
+        }
+        secret.setTags(tags);
+
+        var secretResponse = new SecretResponse();
+        BeanUtils.copyProperties(secret, secretResponse);
+        List<SimpleUserPrivilegeResponse> userResponses = new ArrayList<>();
+        for (UserSecretPrivilege userSecretPrivilege : secret.getUsers()) {
+            var simpleUserResponse = new SimpleUserResponse();
+            BeanUtils.copyProperties(userSecretPrivilege.getUser(), simpleUserResponse);
+            userResponses.add(new SimpleUserPrivilegeResponse(simpleUserResponse, userSecretPrivilege.getPrivilege()));
+        }
+        secretResponse.setUsers(userResponses);
+        List<SimpleFileResponse> fileResponses = new ArrayList<>();
+        for (File file : secret.getFiles()) {
+            var simpleFileResponse = new SimpleFileResponse();
+            BeanUtils.copyProperties(file, simpleFileResponse);
+            fileResponses.add(simpleFileResponse);
+        }
+        secretResponse.setFiles(fileResponses);
+        List<String> tagNames = new ArrayList<>();
+        for (Tag tag : secret.getTags()) {
+            tagNames.add(tag.getName());
+        }
+        secretResponse.setTags(tagNames);
+        return secretResponse;
+    }
+
+    @Benchmark
+    public SecretResponse mappingServiceSecretDaoToResponse() {
+        return mappingService.secretToResponse(mappingService.secretFromDao(secretDao));
+    }
+
+    @Benchmark
+    public SimpleSecretResponse mappingServiceSecretToSimpleResponse() {
+        return mappingService.secretToSimpleResponse(mappingService.secretFromDao(secretDao));
+    }
+}
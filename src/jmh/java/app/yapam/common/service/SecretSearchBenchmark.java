@@ -0,0 +1,76 @@
+package app.yapam.common.service;
+
+import app.yapam.common.repository.SecretSearchDocument;
+import app.yapam.secret.model.SecretTypeEnum;
+import app.yapam.secret.model.response.SimpleSecretResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecretSearchBenchmark {
+
+    private static final String[] WORDS = {"mail", "bank", "server", "router", "database", "account", "shop", "cloud",
+            "backup", "vpn", "wifi", "github", "office", "printer", "insurance", "travel"};
+
+    @Param({"10000", "100000"})
+    private int secrets;
+
+    @Param({"100"})
+    private int users;
+
+    @Param({"serv", "backup github"})
+    private String query;
+
+    private final FilterEvaluator filterEvaluator = new FilterEvaluator();
+    private final Map<String, List<SimpleSecretResponse>> secretsByUser = new HashMap<>();
+    private SecretSearchIndex index;
+    private String[] keywords;
+    private String userId;
+
+    @Setup
+    public void setup() {
+        var random = new Random(42);
+        List<SecretSearchDocument> documents = new ArrayList<>();
+        for (int i = 0; i < secrets; i++) {
+            var document = new SecretSearchDocument(UUID.nameUUIDFromBytes(String.valueOf(i).getBytes()).toString(),
+                    WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i, SecretTypeEnum.LOGIN);
+            var tag = WORDS[random.nextInt(WORDS.length)];
+            var owner = "user" + random.nextInt(users);
+            document.getTags().put(tag, tag);
+            document.getUserIds().add(owner);
+            documents.add(document);
+
+            var simpleSecretResponse = new SimpleSecretResponse();
+            simpleSecretResponse.setSecretId(document.getSecretId());
+            simpleSecretResponse.setTitle(document.getTitle());
+            simpleSecretResponse.setTags(new ArrayList<>(document.getTags().values()));
+            secretsByUser.computeIfAbsent(owner, key -> new ArrayList<>()).add(simpleSecretResponse);
+        }
+        index = new SecretSearchIndex(documents);
+        keywords = query.split(" ");
+        userId = "user0";
+    }
+
+    @Benchmark
+    public List<String> filterEvaluator() {
+        return secretsByUser.get(userId).stream()
+                .filter(secret -> filterEvaluator.filterForKeywords(secret, keywords))
+                .map(SimpleSecretResponse::getSecretId)
+                .sorted()
+                .limit(100)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> searchIndex() {
+        return index.search(userId, Arrays.asList(keywords), "", 100);
+    }
+}
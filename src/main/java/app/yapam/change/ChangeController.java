@@ -0,0 +1,26 @@
+package app.yapam.change;
+
+import app.yapam.change.model.response.ChangeResponseWrapper;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class ChangeController {
+
+    @Autowired private ChangeService changeService;
+
+    @ApiOperation(value = "Get the secret changes visible to a user since a cursor",
+            notes = "Changes younger than yapam.changes.watermark-lag are held back so a slow commit is not skipped. This is best-effort, "
+                    + "a client that needs a complete picture should reload its secrets after a long gap.")
+    @GetMapping(value = "/api/changes", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    @ResponseBody
+    public ChangeResponseWrapper getChanges(@RequestParam(value = "since", required = false) String since,
+                                            @RequestParam(value = "limit", required = false) Integer limit) {
+        return changeService.getChanges(since, limit);
+    }
+}
@@ -0,0 +1,121 @@
+package app.yapam.change;
+
+import app.yapam.change.model.ChangeTypeEnum;
+import app.yapam.change.model.SecretChangeEvent;
+import app.yapam.change.model.response.ChangeResponseWrapper;
+import app.yapam.common.error.InvalidCursorException;
+import app.yapam.common.repository.SecretChangeDao;
+import app.yapam.common.repository.SecretChangeRepository;
+import app.yapam.common.repository.SecretDao;
+import app.yapam.common.repository.UserSecretDao;
+import app.yapam.common.service.MappingService;
+import app.yapam.common.service.PaginationService;
+import app.yapam.config.YapamProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class ChangeService {
+
+    @Autowired private SecretChangeRepository secretChangeRepository;
+    @Autowired private MappingService mappingService;
+    @Autowired private PaginationService paginationService;
+    @Autowired private ApplicationEventPublisher applicationEventPublisher;
+    @Autowired private YapamProperties yapamProperties;
+
+    @PreAuthorize("@permissionEvaluator.registeredUser()")
+    ChangeResponseWrapper getChanges(String since, Integer limit) {
+        var userId = SecurityContextHolder.getContext().getAuthentication().getName();
+        var sinceId = decodeChangeId(since);
+        var pageSize = paginationService.resolveLimit(limit);
+        var changes = secretChangeRepository.findAllByUserIdAndIdGreaterThan(userId, sinceId, PageRequest.of(0, pageSize + 1, Sort.by("id")));
+        var settled = getSettledChanges(changes);
+        var page = settled.subList(0, Math.min(settled.size(), pageSize));
+
+        var changeResponseWrapper = new ChangeResponseWrapper();
+        changeResponseWrapper.setChanges(page.stream().map(mappingService::secretChangeDaoToResponse).collect(Collectors.toList()));
+        changeResponseWrapper.setNext(page.isEmpty() ? since : paginationService.encodeCursor(String.valueOf(page.get(page.size() - 1).getId())));
+        changeResponseWrapper.setMore(settled.size() > pageSize);
+        return changeResponseWrapper;
+    }
+
+    public List<SecretChangeDao> getSettledChanges(List<SecretChangeDao> changes) {
+        // ids are assigned on insert but become visible on commit, so a recent change may still have an uncommitted predecessor.
+        // holding back the lag window is best-effort: a commit that lands later than that after its insert can still be skipped
+        var settledBefore = getSettledBefore();
+        return changes.stream().takeWhile(change -> change.getCreationDate().isBefore(settledBefore)).collect(Collectors.toList());
+    }
+
+    public LocalDateTime getSettledBefore() {
+        return getDatabaseTime().minus(yapamProperties.getChanges().getWatermarkLag(), ChronoUnit.MILLIS);
+    }
+
+    public void recordSecretCreated(SecretDao secretDao) {
+        List<SecretChangeDao> changes = new ArrayList<>();
+        for (UserSecretDao userSecret : secretDao.getUsers()) {
+            changes.add(new SecretChangeDao(userSecret.getUser().getId(), secretDao.getSecretId(), secretDao.getVersion(), ChangeTypeEnum.CREATED));
+        }
+        saveChanges(changes);
+    }
+
+    public void recordSecretDeleted(String secretId, Collection<String> userIds) {
+        List<SecretChangeDao> changes = new ArrayList<>();
+        for (String userId : userIds) {
+            changes.add(new SecretChangeDao(userId, secretId, null, ChangeTypeEnum.DELETED));
+        }
+        saveChanges(changes);
+    }
+
+    public void recordSecretUpdated(SecretDao secretDao, Collection<String> previousUserIds) {
+        List<SecretChangeDao> changes = new ArrayList<>();
+        Set<String> userIds = secretDao.getUsers().stream().map(userSecret -> userSecret.getUser().getId()).collect(Collectors.toSet());
+        for (String userId : userIds) {
+            var type = previousUserIds.contains(userId) ? ChangeTypeEnum.UPDATED : ChangeTypeEnum.SHARED;
+            changes.add(new SecretChangeDao(userId, secretDao.getSecretId(), secretDao.getVersion(), type));
+        }
+        for (String userId : previousUserIds) {
+            if (!userIds.contains(userId)) {
+                changes.add(new SecretChangeDao(userId, secretDao.getSecretId(), secretDao.getVersion(), ChangeTypeEnum.UNSHARED));
+            }
+        }
+        saveChanges(changes);
+    }
+
+    private LocalDateTime getDatabaseTime() {
+        return secretChangeRepository.findCurrentTimestamp().toLocalDateTime();
+    }
+
+    private void saveChanges(List<SecretChangeDao> changes) {
+        // the database clock is shared by every instance, so the lag window does not depend on the clock of the writing node
+        if (!changes.isEmpty()) {
+            var creationDate = getDatabaseTime();
+            changes.forEach(change -> change.setCreationDate(creationDate));
+        }
+        applicationEventPublisher.publishEvent(new SecretChangeEvent(secretChangeRepository.saveAll(changes)));
+    }
+
+    private Long decodeChangeId(String since) {
+        var changeId = paginationService.decodeCursor(since);
+        if (changeId.isEmpty()) {
+            return 0L;
+        }
+        try {
+            return Long.valueOf(changeId);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(since);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package app.yapam.change.model;
+
+public enum ChangeTypeEnum {
+    CREATED,
+    UPDATED,
+    SHARED,
+    UNSHARED,
+    DELETED
+}
@@ -0,0 +1,14 @@
+package app.yapam.change.model;
+
+import app.yapam.common.repository.SecretChangeDao;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class SecretChangeEvent {
+
+    private final List<SecretChangeDao> changes;
+}
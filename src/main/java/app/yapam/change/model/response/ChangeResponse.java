@@ -0,0 +1,17 @@
+package app.yapam.change.model.response;
+
+import app.yapam.change.model.ChangeTypeEnum;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class ChangeResponse {
+
+    private String secretId;
+    private Integer version;
+    private ChangeTypeEnum type;
+    private LocalDateTime creationDate;
+}
@@ -0,0 +1,15 @@
+package app.yapam.change.model.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class ChangeResponseWrapper {
+
+    private List<ChangeResponse> changes;
+    private String next;
+    private Boolean more;
+}
@@ -0,0 +1,12 @@
+package app.yapam.common.error;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidBatchOperationException extends YapamException {
+
+    public InvalidBatchOperationException(String message) {
+        super(message);
+    }
+}
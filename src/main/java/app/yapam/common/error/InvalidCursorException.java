@@ -0,0 +1,12 @@
+package app.yapam.common.error;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends YapamException {
+
+    public InvalidCursorException(String cursor) {
+        super(String.format("Cursor %s is invalid", cursor));
+    }
+}
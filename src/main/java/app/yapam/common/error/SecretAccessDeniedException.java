@@ -0,0 +1,12 @@
+package app.yapam.common.error;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.FORBIDDEN)
+public class SecretAccessDeniedException extends YapamException {
+
+    public SecretAccessDeniedException(String secretId) {
+        super(String.format("Access to secret with id %s denied", secretId));
+    }
+}
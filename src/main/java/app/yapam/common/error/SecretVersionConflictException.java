@@ -0,0 +1,16 @@
+package app.yapam.common.error;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class SecretVersionConflictException extends YapamException {
+
+    public SecretVersionConflictException(String secretId) {
+        super(String.format("Secret with id %s was modified concurrently", secretId));
+    }
+
+    public SecretVersionConflictException(String secretId, Integer version) {
+        super(String.format("Secret with id %s is no longer at version %d", secretId, version));
+    }
+}
@@ -0,0 +1,30 @@
+package app.yapam.common.error;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UnknownReferenceException extends YapamException {
+
+    public UnknownReferenceException(Collection<String> userIds, Collection<String> fileIds, Collection<String> tagIds) {
+        super(formatMessage(userIds, fileIds, tagIds));
+    }
+
+    private static String formatMessage(Collection<String> userIds, Collection<String> fileIds, Collection<String> tagIds) {
+        List<String> references = new ArrayList<>();
+        if (!userIds.isEmpty()) {
+            references.add(String.format("users %s", String.join(", ", userIds)));
+        }
+        if (!fileIds.isEmpty()) {
+            references.add(String.format("files %s", String.join(", ", fileIds)));
+        }
+        if (!tagIds.isEmpty()) {
+            references.add(String.format("tags %s", String.join(", ", tagIds)));
+        }
+        return String.format("Unknown %s", String.join("; ", references));
+    }
+}
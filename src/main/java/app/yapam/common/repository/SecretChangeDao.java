@@ -0,0 +1,37 @@
+package app.yapam.common.repository;
+
+import app.yapam.change.model.ChangeTypeEnum;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "secret_change")
+public class SecretChangeDao {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "user_id")
+    private String userId;
+    @Column(name = "secret_id")
+    private String secretId;
+    private Integer version;
+    private ChangeTypeEnum type;
+    @Column(name = "creation_date")
+    private LocalDateTime creationDate;
+
+    public SecretChangeDao(String userId, String secretId, Integer version, ChangeTypeEnum type) {
+        this.userId = userId;
+        this.secretId = secretId;
+        this.version = version;
+        this.type = type;
+        this.creationDate = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,25 @@
+package app.yapam.common.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SecretChangeRepository extends JpaRepository<SecretChangeDao, Long> {
+
+    List<SecretChangeDao> findAllByIdGreaterThan(Long id, Pageable pageable);
+
+    List<SecretChangeDao> findAllByUserIdAndIdGreaterThan(String userId, Long id, Pageable pageable);
+
+    @Query(value = "select current_timestamp(3)", nativeQuery = true)
+    Timestamp findCurrentTimestamp();
+
+    @Query("select coalesce(max(c.id), 0) from SecretChangeDao c where c.creationDate < :createdBefore")
+    Long findMaxIdByCreationDateBefore(@Param("createdBefore") LocalDateTime createdBefore);
+}
@@ -26,8 +26,12 @@ public class SecretDao extends Auditable {
     @Column(name = "secret_id")
     private String secretId;
     private Integer version;
-    @Lob
-    private String data;
+    @ManyToOne(
+            fetch = FetchType.LAZY,
+            cascade = CascadeType.PERSIST
+    )
+    @JoinColumn(name = "data_hash")
+    private SecretDataDao content;
     private SecretTypeEnum type;
     @OneToMany(
             mappedBy = "secret",
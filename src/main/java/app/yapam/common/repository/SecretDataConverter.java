@@ -0,0 +1,88 @@
+package app.yapam.common.repository;
+
+import app.yapam.config.YapamProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+@Component
+@Converter
+public class SecretDataConverter implements AttributeConverter<String, byte[]> {
+
+    static final byte RAW = 0x00;
+    static final byte DEFLATE = 0x01;
+
+    @Autowired private YapamProperties yapamProperties;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String data) {
+        if (Objects.isNull(data)) {
+            return null;
+        }
+        var raw = data.getBytes(StandardCharsets.UTF_8);
+        if (isCompressionEnabled() && raw.length >= yapamProperties.getCompression().getMinSize()) {
+            var compressed = deflate(raw);
+            if (compressed.length < raw.length) {
+                return compressed;
+            }
+        }
+        if (raw.length > 0 && (raw[0] == RAW || raw[0] == DEFLATE)) {
+            var prefixed = new byte[raw.length + 1];
+            prefixed[0] = RAW;
+            System.arraycopy(raw, 0, prefixed, 1, raw.length);
+            return prefixed;
+        }
+        return raw;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] column) {
+        if (Objects.isNull(column)) {
+            return null;
+        }
+        if (column.length > 0 && column[0] == DEFLATE) {
+            return new String(inflate(column), StandardCharsets.UTF_8);
+        }
+        if (column.length > 0 && column[0] == RAW) {
+            return new String(column, 1, column.length - 1, StandardCharsets.UTF_8);
+        }
+        return new String(column, StandardCharsets.UTF_8);
+    }
+
+    public boolean isCompressed(byte[] column) {
+        return column.length > 0 && column[0] == DEFLATE;
+    }
+
+    private boolean isCompressionEnabled() {
+        return Objects.nonNull(yapamProperties) && Boolean.TRUE.equals(yapamProperties.getCompression().getEnabled());
+    }
+
+    private byte[] deflate(byte[] raw) {
+        var outputStream = new ByteArrayOutputStream(raw.length / 2 + 1);
+        outputStream.write(DEFLATE);
+        try (var deflaterOutputStream = new DeflaterOutputStream(outputStream)) {
+            deflaterOutputStream.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private byte[] inflate(byte[] column) {
+        try (var inflaterInputStream = new InflaterInputStream(new ByteArrayInputStream(column, 1, column.length - 1))) {
+            return inflaterInputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package app.yapam.common.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "secret_data")
+public class SecretDataDao {
+
+    @Id
+    private String hash;
+    @Convert(converter = SecretDataConverter.class)
+    @Column(columnDefinition = "longblob")
+    private String data;
+}
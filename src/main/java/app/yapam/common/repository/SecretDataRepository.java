@@ -0,0 +1,37 @@
+package app.yapam.common.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.transaction.Transactional;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SecretDataRepository extends JpaRepository<SecretDataDao, String> {
+
+    @Query(value = "select hash from secret_data where hash > :after and left(data, 1) <> x'01' order by hash limit :limit", nativeQuery = true)
+    List<String> findUncompressedHashes(@Param("after") String after, @Param("limit") Integer limit);
+
+    @Query("select distinct s.content.hash from SecretDao s where s.id in :ids")
+    List<String> findHashesByIdIn(@Param("ids") Collection<String> ids);
+
+    @Modifying
+    @Query(value = "insert ignore into secret_data (hash, data) values (:hash, :data)", nativeQuery = true)
+    void insertIgnore(@Param("hash") String hash, @Param("data") byte[] data);
+
+    @Query(value = "select hash from secret_data where hash in :hashes for update", nativeQuery = true)
+    List<String> lockByHashIn(@Param("hashes") Collection<String> hashes);
+
+    @Modifying
+    @Transactional
+    @Query("delete from SecretDataDao d where d.hash in :hashes and not exists (select s.id from SecretDao s where s.content.hash = d.hash)")
+    void deleteUnreferencedByHashIn(@Param("hashes") Collection<String> hashes);
+
+    @Modifying
+    @Query(value = "update secret_data set data = :data where hash = :hash", nativeQuery = true)
+    void updateData(@Param("hash") String hash, @Param("data") byte[] data);
+}
@@ -0,0 +1,16 @@
+package app.yapam.common.repository;
+
+import app.yapam.secret.model.SecretTypeEnum;
+
+import java.time.LocalDateTime;
+
+public interface SecretDetailProjection {
+
+    String getId();
+    String getTitle();
+    String getSecretId();
+    String getData();
+    SecretTypeEnum getType();
+    Integer getVersion();
+    LocalDateTime getCreationDate();
+}
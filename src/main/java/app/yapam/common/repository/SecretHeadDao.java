@@ -0,0 +1,29 @@
+package app.yapam.common.repository;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+
+@NoArgsConstructor
+@Entity
+@Getter
+@Setter
+@Table(name = "secret_head")
+public class SecretHeadDao {
+
+    @Id
+    @Column(name = "secret_id")
+    private String secretId;
+    @OneToOne
+    @JoinColumn(name = "head_id")
+    private SecretDao secret;
+    private Integer version;
+
+    public SecretHeadDao(SecretDao secretDao) {
+        this.secretId = secretDao.getSecretId();
+        this.secret = secretDao;
+        this.version = secretDao.getVersion();
+    }
+}
@@ -0,0 +1,22 @@
+package app.yapam.common.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SecretHeadRepository extends JpaRepository<SecretHeadDao, String> {
+
+    @Query("select h.version from SecretHeadDao h where h.secretId = :secretId")
+    Integer findVersionBySecretId(@Param("secretId") String secretId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update SecretHeadDao h set h.version = h.version + 1 where h.secretId = :secretId and h.version = :version")
+    int incrementVersion(@Param("secretId") String secretId, @Param("version") Integer version);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update SecretHeadDao h set h.secret = :secret where h.secretId = :secretId")
+    void updateHead(@Param("secretId") String secretId, @Param("secret") SecretDao secret);
+}
@@ -0,0 +1,12 @@
+package app.yapam.common.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SecretKey {
+
+    private final String secretId;
+    private final String id;
+}
@@ -0,0 +1,10 @@
+package app.yapam.common.repository;
+
+import java.time.LocalDateTime;
+
+public interface SecretListStateProjection {
+
+    Long getCount();
+    Long getVersionSum();
+    LocalDateTime getLastChange();
+}
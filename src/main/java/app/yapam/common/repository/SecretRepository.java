@@ -1,20 +1,82 @@
 package app.yapam.common.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
-public interface SecretRepository extends JpaRepository<SecretDao, String> {
+public interface SecretRepository extends JpaRepository<SecretDao, String>, SecretRepositoryCustom {
 
-    @Transactional
-    void deleteBySecretId(String secretId);
+    @Modifying
+    @Query(value = "delete from secret_file where secret_id in :ids", nativeQuery = true)
+    void deleteSecretFilesByIdIn(@Param("ids") Collection<String> ids);
 
-    SecretDao findFirstBySecretIdAndVersion(String secretId, Integer version);
+    @Modifying
+    @Query(value = "delete from secret_tag where secret_id in :ids", nativeQuery = true)
+    void deleteSecretTagsByIdIn(@Param("ids") Collection<String> ids);
 
-    SecretDao findFirstBySecretIdOrderByVersionDesc(String secretId);
+    @Modifying
+    @Query(value = "delete from user_secret where secret_id in :ids", nativeQuery = true)
+    void deleteUserSecretsByIdIn(@Param("ids") Collection<String> ids);
 
-    SecretVersionProjection findFirstDistinctVersionBySecretIdOrderByVersionDesc(String secretId);
+    @Modifying
+    @Query(value = "delete from secret where id in :ids", nativeQuery = true)
+    void deleteVersionsByIdIn(@Param("ids") Collection<String> ids);
+
+    @Query("select s.id from SecretDao s, SecretTombstoneDao t where t.secretId = s.secretId order by t.deletionDate, s.id")
+    List<String> findDeletedIds(Pageable pageable);
+
+    @Query("select s.id as id, s.title as title, s.secretId as secretId, c.data as data, s.type as type, s.version as version, s.creationDate as creationDate " +
+            "from SecretDao s join s.content c where s.secretId = :secretId and s.version = :version")
+    SecretDetailProjection findDetailBySecretIdAndVersion(@Param("secretId") String secretId, @Param("version") Integer version);
+
+    @Query("select s.id from SecretDao s, SecretHeadDao h where h.secretId = s.secretId " +
+            "and s.version <= h.version - :keepVersions and s.creationDate < :before order by s.id")
+    List<String> findExpiredIds(@Param("keepVersions") Integer keepVersions, @Param("before") LocalDateTime before, Pageable pageable);
+
+    @Query("select f.id as id, f.filename as filename, f.filesize as filesize, f.mimetype as mimetype from SecretDao s join s.files f where s.id = :id")
+    List<SimpleFileProjection> findFilesById(@Param("id") String id);
+
+    @Query("select s.id as id, s.title as title, s.secretId as secretId, c.data as data, s.type as type, s.version as version, s.creationDate as creationDate " +
+            "from SecretHeadDao h join h.secret s join s.content c where h.secretId = :secretId")
+    SecretDetailProjection findHeadDetailBySecretId(@Param("secretId") String secretId);
+
+    @Query("select new app.yapam.common.repository.SecretKey(h.secretId, s.id) " +
+            "from SecretHeadDao h join h.secret s join s.users us where us.user.id = :userId and h.secretId in :secretIds order by h.secretId")
+    List<SecretKey> findLatestKeysByUserIdAndSecretIdIn(@Param("userId") String userId, @Param("secretIds") Collection<String> secretIds);
+
+    @Query("select s.version as version, s.title as title, s.creationDate as creationDate, u.id as createdById, u.name as createdByName " +
+            "from SecretDao s join s.createdBy u where s.secretId = :secretId order by s.version desc")
+    List<SecretVersionProjection> findVersionsBySecretId(@Param("secretId") String secretId);
+
+    @Query("select count(h) as count, sum(h.version) as versionSum, max(s.creationDate) as lastChange " +
+            "from SecretHeadDao h join h.secret s join s.users us where us.user.id = :userId")
+    SecretListStateProjection findListStateByUserId(@Param("userId") String userId);
+
+    @Query("select s.secretId as secretId, s.title as title, t.name as tagName " +
+            "from SecretDao s left join s.tags t where s.id in :ids order by s.secretId, t.name")
+    List<SimpleSecretProjection> findSimpleSecretsByIdIn(@Param("ids") Collection<String> ids);
+
+    @Query("select t.id as tagId, t.name as name, count(h) as count " +
+            "from SecretHeadDao h join h.secret s join s.users us join s.tags t where us.user.id = :userId group by t.id, t.name order by t.name")
+    List<SecretTagFacetProjection> findTagFacetsByUserId(@Param("userId") String userId);
+
+    @Query("select t.name from SecretDao s join s.tags t where s.id = :id")
+    List<String> findTagNamesById(@Param("id") String id);
+
+    @Query("select s.type as type, count(h) as count " +
+            "from SecretHeadDao h join h.secret s join s.users us where us.user.id = :userId group by s.type")
+    List<SecretTypeFacetProjection> findTypeFacetsByUserId(@Param("userId") String userId);
+
+    @Query("select u.id as id, u.name as name, u.email as email, u.publicKey as publicKey, us.privileged as privileged " +
+            "from UserSecretDao us join us.user u where us.secret.id = :id")
+    List<SecretUserPrivilegeProjection> findUserPrivilegesById(@Param("id") String id);
 
 }
@@ -0,0 +1,14 @@
+package app.yapam.common.repository;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SecretRepositoryCustom {
+
+    List<SecretKey> findLatestKeysByUserId(String userId, List<String> keywords, String after, int limit);
+
+    @Transactional(readOnly = true)
+    List<SecretSearchDocument> findSearchDocuments(Collection<String> secretIds);
+}
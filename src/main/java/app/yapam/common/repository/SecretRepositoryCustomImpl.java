@@ -0,0 +1,72 @@
+package app.yapam.common.repository;
+
+import app.yapam.secret.model.SecretTypeEnum;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.*;
+
+public class SecretRepositoryCustomImpl implements SecretRepositoryCustom {
+
+    @PersistenceContext private EntityManager entityManager;
+
+    private String escapeLikePattern(String keyword) {
+        return "%" + keyword.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    @Override
+    public List<SecretKey> findLatestKeysByUserId(String userId, List<String> keywords, String after, int limit) {
+        var jpql = new StringBuilder("select new app.yapam.common.repository.SecretKey(h.secretId, s.id) from SecretHeadDao h join h.secret s join s.users us " +
+                "where us.user.id = :userId " +
+                "and h.secretId > :after ");
+        List<String> keywordPredicates = new ArrayList<>();
+        for (int i = 0; i < keywords.size(); i++) {
+            keywordPredicates.add(String.format("s.title like :keyword%1$d escape '!' " +
+                    "or exists (select t.id from TagDao t join t.secrets ts where ts.id = s.id and t.name like :keyword%1$d escape '!')", i));
+        }
+        if (!keywordPredicates.isEmpty()) {
+            jpql.append("and (").append(String.join(" or ", keywordPredicates)).append(") ");
+        }
+        jpql.append("order by h.secretId");
+
+        var query = entityManager.createQuery(jpql.toString(), SecretKey.class);
+        query.setParameter("userId", userId);
+        query.setParameter("after", after);
+        for (int i = 0; i < keywords.size(); i++) {
+            query.setParameter("keyword" + i, escapeLikePattern(keywords.get(i)));
+        }
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    @Override
+    public List<SecretSearchDocument> findSearchDocuments(Collection<String> secretIds) {
+        var restriction = Objects.isNull(secretIds) ? "" : " where h.secretId in :secretIds";
+        Map<String, SecretSearchDocument> documents = new LinkedHashMap<>();
+        for (Object[] row : findSearchRows("select h.secretId, s.title, s.type from SecretHeadDao h join h.secret s" + restriction, secretIds)) {
+            documents.put((String) row[0], new SecretSearchDocument((String) row[0], (String) row[1], (SecretTypeEnum) row[2]));
+        }
+        // the rows are read in one snapshot, but a head created or moved by a concurrent commit must not fail the whole read
+        for (Object[] row : findSearchRows("select h.secretId, t.id, t.name from SecretHeadDao h join h.secret s join s.tags t" + restriction, secretIds)) {
+            var document = documents.get(row[0]);
+            if (Objects.nonNull(document)) {
+                document.getTags().put((String) row[1], (String) row[2]);
+            }
+        }
+        for (Object[] row : findSearchRows("select h.secretId, us.user.id from SecretHeadDao h join h.secret s join s.users us" + restriction, secretIds)) {
+            var document = documents.get(row[0]);
+            if (Objects.nonNull(document)) {
+                document.getUserIds().add((String) row[1]);
+            }
+        }
+        return new ArrayList<>(documents.values());
+    }
+
+    private List<Object[]> findSearchRows(String jpql, Collection<String> secretIds) {
+        var query = entityManager.createQuery(jpql, Object[].class);
+        if (Objects.nonNull(secretIds)) {
+            query.setParameter("secretIds", secretIds);
+        }
+        return query.getResultList();
+    }
+}
@@ -0,0 +1,25 @@
+package app.yapam.common.repository;
+
+import app.yapam.secret.model.SecretTypeEnum;
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Getter
+public class SecretSearchDocument {
+
+    private final String secretId;
+    private final String title;
+    private final SecretTypeEnum type;
+    private final Map<String, String> tags = new LinkedHashMap<>();
+    private final Set<String> userIds = new LinkedHashSet<>();
+
+    public SecretSearchDocument(String secretId, String title, SecretTypeEnum type) {
+        this.secretId = secretId;
+        this.title = title;
+        this.type = type;
+    }
+}
@@ -0,0 +1,8 @@
+package app.yapam.common.repository;
+
+public interface SecretTagFacetProjection {
+
+    String getTagId();
+    String getName();
+    Long getCount();
+}
@@ -0,0 +1,30 @@
+package app.yapam.common.repository;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "secret_tombstone")
+public class SecretTombstoneDao {
+
+    @Id
+    @Column(name = "secret_id")
+    private String secretId;
+    @Column(name = "deletion_date")
+    private LocalDateTime deletionDate;
+
+    public SecretTombstoneDao(String secretId) {
+        this.secretId = secretId;
+        this.deletionDate = LocalDateTime.now();
+    }
+}
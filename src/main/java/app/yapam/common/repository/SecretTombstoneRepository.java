@@ -0,0 +1,14 @@
+package app.yapam.common.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SecretTombstoneRepository extends JpaRepository<SecretTombstoneDao, String> {
+
+    @Modifying
+    @Query("delete from SecretTombstoneDao t where not exists (select s.id from SecretDao s where s.secretId = t.secretId)")
+    int deletePurged();
+}
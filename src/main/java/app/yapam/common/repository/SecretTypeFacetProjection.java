@@ -0,0 +1,9 @@
+package app.yapam.common.repository;
+
+import app.yapam.secret.model.SecretTypeEnum;
+
+public interface SecretTypeFacetProjection {
+
+    SecretTypeEnum getType();
+    Long getCount();
+}
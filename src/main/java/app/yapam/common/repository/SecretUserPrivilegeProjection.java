@@ -0,0 +1,6 @@
+package app.yapam.common.repository;
+
+public interface SecretUserPrivilegeProjection extends SimpleUserProjection {
+
+    Boolean getPrivileged();
+}
@@ -1,7 +1,12 @@
 package app.yapam.common.repository;
 
+import java.time.LocalDateTime;
+
 public interface SecretVersionProjection {
 
     Integer getVersion();
-    void setVersion(Integer version);
+    String getTitle();
+    LocalDateTime getCreationDate();
+    String getCreatedById();
+    String getCreatedByName();
 }
@@ -0,0 +1,9 @@
+package app.yapam.common.repository;
+
+public interface SimpleFileProjection {
+
+    String getId();
+    String getFilename();
+    Long getFilesize();
+    String getMimetype();
+}
@@ -0,0 +1,8 @@
+package app.yapam.common.repository;
+
+public interface SimpleSecretProjection {
+
+    String getSecretId();
+    String getTitle();
+    String getTagName();
+}
@@ -0,0 +1,9 @@
+package app.yapam.common.repository;
+
+public interface SimpleUserProjection {
+
+    String getId();
+    String getName();
+    String getEmail();
+    String getPublicKey();
+}
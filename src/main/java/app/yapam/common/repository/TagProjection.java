@@ -0,0 +1,7 @@
+package app.yapam.common.repository;
+
+public interface TagProjection {
+
+    String getId();
+    String getName();
+}
@@ -1,10 +1,18 @@
 package app.yapam.common.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface TagRepository extends JpaRepository<TagDao, String> {
 
     TagDao findOneById(String id);
+
+    @Query("select t.id as id, t.name as name from TagDao t where t.name > :after")
+    List<TagProjection> findTagsByNameGreaterThan(@Param("after") String after, Pageable pageable);
 }
@@ -1,8 +1,19 @@
 package app.yapam.common.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface UserRepository extends JpaRepository<UserDao, String> {
 
     UserDao findOneById(String userId);
+
+    @Query("select u.id as id, u.name as name, u.email as email, u.publicKey as publicKey from UserDao u where u.id = :userId")
+    SimpleUserProjection findSimpleUserById(@Param("userId") String userId);
+
+    @Query("select u.id as id, u.name as name, u.email as email, u.publicKey as publicKey from UserDao u where u.id > :after")
+    List<SimpleUserProjection> findSimpleUsersByIdGreaterThan(@Param("after") String after, Pageable pageable);
 }
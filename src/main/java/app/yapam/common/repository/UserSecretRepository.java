@@ -1,10 +1,33 @@
 package app.yapam.common.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Set;
 
 public interface UserSecretRepository extends JpaRepository<UserSecretDao, UserSecretId> {
 
+    @Query("select case when count(us) > 0 then true else false end from UserSecretDao us, SecretHeadDao h " +
+            "where h.secretId = :secretId and us.secret = h.secret and us.user.id = :userId")
+    boolean existsHeadUser(@Param("secretId") String secretId, @Param("userId") String userId);
+
+    @Query("select case when count(us) > 0 then true else false end from UserSecretDao us, SecretHeadDao h " +
+            "where h.secretId = :secretId and us.secret = h.secret and us.user.id = :userId and us.privileged = true")
+    boolean existsPrivilegedHeadUser(@Param("secretId") String secretId, @Param("userId") String userId);
+
     Set<UserSecretDao> findAllByUserId(String userId);
+
+    @Query("select h.secretId from FileDao f join f.secrets s, SecretHeadDao h, UserSecretDao us " +
+            "where f.id = :fileId and h.secretId = s.secretId and us.secret = h.secret and us.user.id = :userId")
+    List<String> findFileGrants(@Param("fileId") String fileId, @Param("userId") String userId, Pageable pageable);
+
+    @Query("select us.user.id from SecretHeadDao h join h.secret s join s.users us where h.secretId = :secretId")
+    List<String> findHeadUserIdsBySecretId(@Param("secretId") String secretId);
+
+    @Query("select h.secretId from FileDao f join f.secrets s, SecretHeadDao h, UserSecretDao us " +
+            "where f.id = :fileId and h.secretId = s.secretId and us.secret = h.secret and us.user.id = :userId and us.privileged = true")
+    List<String> findPrivilegedFileGrants(@Param("fileId") String fileId, @Param("userId") String userId, Pageable pageable);
 }
@@ -0,0 +1,78 @@
+package app.yapam.common.service;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+public class BeanCopier<S, T> {
+
+    private final List<Function<Object, Object>> getters = new ArrayList<>();
+    private final List<BiConsumer<Object, Object>> setters = new ArrayList<>();
+
+    private BeanCopier(Class<S> sourceClass, Class<T> targetClass, Set<String> ignoreProperties) {
+        for (PropertyDescriptor targetProperty : BeanUtils.getPropertyDescriptors(targetClass)) {
+            var writeMethod = targetProperty.getWriteMethod();
+            if (Objects.isNull(writeMethod) || ignoreProperties.contains(targetProperty.getName())) {
+                continue;
+            }
+            var sourceProperty = BeanUtils.getPropertyDescriptor(sourceClass, targetProperty.getName());
+            if (Objects.isNull(sourceProperty) || Objects.isNull(sourceProperty.getReadMethod())) {
+                continue;
+            }
+            var readMethod = sourceProperty.getReadMethod();
+            if (ClassUtils.isAssignable(writeMethod.getParameterTypes()[0], readMethod.getReturnType())) {
+                getters.add(createGetter(readMethod));
+                setters.add(createSetter(writeMethod));
+            }
+        }
+    }
+
+    public static <S, T> BeanCopier<S, T> create(Class<S> sourceClass, Class<T> targetClass, String... ignoreProperties) {
+        return new BeanCopier<>(sourceClass, targetClass, Set.of(ignoreProperties));
+    }
+
+    public void copy(S source, T target) {
+        for (int i = 0; i < getters.size(); i++) {
+            setters.get(i).accept(target, getters.get(i).apply(source));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> createGetter(Method readMethod) {
+        try {
+            var lookup = MethodHandles.privateLookupIn(readMethod.getDeclaringClass(), MethodHandles.lookup());
+            var getter = lookup.unreflect(readMethod);
+            return (Function<Object, Object>) LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class), MethodType.methodType(Object.class, Object.class), getter,
+                    MethodType.methodType(ClassUtils.resolvePrimitiveIfNecessary(readMethod.getReturnType()), readMethod.getDeclaringClass()))
+                    .getTarget().invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not create getter for " + readMethod, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> createSetter(Method writeMethod) {
+        try {
+            var lookup = MethodHandles.privateLookupIn(writeMethod.getDeclaringClass(), MethodHandles.lookup());
+            var setter = lookup.unreflect(writeMethod);
+            return (BiConsumer<Object, Object>) LambdaMetafactory.metafactory(lookup, "accept",
+                    MethodType.methodType(BiConsumer.class), MethodType.methodType(void.class, Object.class, Object.class), setter,
+                    MethodType.methodType(void.class, writeMethod.getDeclaringClass(), ClassUtils.resolvePrimitiveIfNecessary(writeMethod.getParameterTypes()[0])))
+                    .getTarget().invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not create setter for " + writeMethod, e);
+        }
+    }
+}
@@ -6,13 +6,16 @@ import org.springframework.stereotype.Service;
 @Service
 public class FilterEvaluator {
 
+    // keywords match case-insensitively, like the search index and the default MySQL collation the query runs under
     public Boolean filterForKeywords(SimpleSecretResponse filterObject, String[] keywords) {
         if (keywords.length == 0) {
             return true;
         }
+        var title = filterObject.getTitle().toLowerCase();
         for (String keyword : keywords) {
-            if (filterObject.getTags().stream().anyMatch(t -> t.contains(keyword)) ||
-                filterObject.getTitle().contains(keyword)) {
+            var needle = keyword.toLowerCase();
+            if (filterObject.getTags().stream().anyMatch(t -> t.toLowerCase().contains(needle)) ||
+                title.contains(needle)) {
                 return true;
             }
         }
@@ -0,0 +1,39 @@
+package app.yapam.common.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@Component
+public class JsonListWriter {
+
+    @Autowired private ObjectMapper objectMapper;
+
+    public <T> void write(HttpServletResponse response, String fieldName, Function<Consumer<T>, String> elements) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        var generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        generator.writeStartObject();
+        generator.writeArrayFieldStart(fieldName);
+        var next = elements.apply(element -> {
+            try {
+                generator.writeObject(element);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        generator.writeEndArray();
+        if (Objects.nonNull(next)) {
+            generator.writeStringField("next", next);
+        }
+        generator.writeEndObject();
+        generator.close();
+    }
+}
@@ -1,9 +1,8 @@
 package app.yapam.common.service;
 
+import app.yapam.change.model.response.ChangeResponse;
 import app.yapam.common.error.InvalidFileContentException;
-import app.yapam.common.error.UnknownFileException;
-import app.yapam.common.error.UnknownTagException;
-import app.yapam.common.error.UnknownUserException;
+import app.yapam.common.error.UnknownReferenceException;
 import app.yapam.common.repository.*;
 import app.yapam.file.model.File;
 import app.yapam.file.model.response.SimpleFileResponse;
@@ -12,6 +11,8 @@ import app.yapam.secret.model.UserSecretPrivilege;
 import app.yapam.secret.model.request.SecretRequest;
 import app.yapam.secret.model.request.UserIdSecretPrivilege;
 import app.yapam.secret.model.response.SecretResponse;
+import app.yapam.secret.model.response.SecretTagFacetResponse;
+import app.yapam.secret.model.response.SecretVersionResponse;
 import app.yapam.secret.model.response.SimpleSecretResponse;
 import app.yapam.secret.model.response.SimpleUserPrivilegeResponse;
 import app.yapam.tag.model.Tag;
@@ -21,23 +22,46 @@ import app.yapam.user.model.request.UserRequest;
 import app.yapam.user.model.response.SimpleUserResponse;
 import app.yapam.user.model.response.UserResponse;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.function.Function;
 
 @Service
 @Slf4j
 public class MappingService {
 
+    private static final BeanCopier<FileDao, File> FILE_FROM_DAO = BeanCopier.create(FileDao.class, File.class);
+    private static final BeanCopier<File, FileDao> FILE_TO_DAO = BeanCopier.create(File.class, FileDao.class);
+    private static final BeanCopier<File, SimpleFileResponse> FILE_TO_SIMPLE_RESPONSE = BeanCopier.create(File.class, SimpleFileResponse.class);
+    private static final BeanCopier<SecretChangeDao, ChangeResponse> SECRET_CHANGE_TO_RESPONSE = BeanCopier.create(SecretChangeDao.class, ChangeResponse.class);
+    private static final BeanCopier<SecretDao, Secret> SECRET_FROM_DAO = BeanCopier.create(SecretDao.class, Secret.class);
+    private static final BeanCopier<SecretRequest, Secret> SECRET_FROM_REQUEST = BeanCopier.create(SecretRequest.class, Secret.class);
+    private static final BeanCopier<Secret, SecretDao> SECRET_TO_DAO = BeanCopier.create(Secret.class, SecretDao.class, "id");
+    private static final BeanCopier<Secret, SecretResponse> SECRET_TO_RESPONSE = BeanCopier.create(Secret.class, SecretResponse.class);
+    private static final BeanCopier<Secret, SimpleSecretResponse> SECRET_TO_SIMPLE_RESPONSE = BeanCopier.create(Secret.class, SimpleSecretResponse.class);
+    private static final BeanCopier<TagDao, Tag> TAG_FROM_DAO = BeanCopier.create(TagDao.class, Tag.class);
+    private static final BeanCopier<Tag, TagDao> TAG_TO_DAO = BeanCopier.create(Tag.class, TagDao.class);
+    private static final BeanCopier<TagDao, TagResponse> TAG_TO_RESPONSE = BeanCopier.create(TagDao.class, TagResponse.class);
+    private static final BeanCopier<UserDao, User> USER_FROM_DAO = BeanCopier.create(UserDao.class, User.class);
+    private static final BeanCopier<UserRequest, User> USER_FROM_REQUEST = BeanCopier.create(UserRequest.class, User.class);
+    private static final BeanCopier<User, UserDao> USER_TO_DAO = BeanCopier.create(User.class, UserDao.class);
+    private static final BeanCopier<User, UserResponse> USER_TO_RESPONSE = BeanCopier.create(User.class, UserResponse.class);
+    private static final BeanCopier<User, SimpleUserResponse> USER_TO_SIMPLE_RESPONSE = BeanCopier.create(User.class, SimpleUserResponse.class);
+
     @Autowired private UserRepository userRepository;
     @Autowired private FileRepository fileRepository;
     @Autowired private TagRepository tagRepository;
+    @Autowired private SecretDataRepository secretDataRepository;
+    @Autowired private SecretDataConverter secretDataConverter;
 
     public SimpleFileResponse fileDaoToSimpleResponse(FileDao fileDao) {
         return fileToSimpleResponse(fileFromDao(fileDao));
@@ -45,7 +69,7 @@ public class MappingService {
 
     public File fileFromDao(FileDao fileDao) {
         var file = new File();
-        BeanUtils.copyProperties(fileDao, file);
+        FILE_FROM_DAO.copy(fileDao, file);
         return file;
     }
 
@@ -55,8 +79,13 @@ public class MappingService {
         file.setFilesize(multipartFile.getSize());
         file.setMimetype(multipartFile.getContentType());
         try {
-            file.setHash(new String(Base64.getEncoder().encode(MessageDigest.getInstance("SHA-1").digest(multipartFile.getBytes()))));
-            file.setContent(multipartFile.getBytes());
+            // the multipart resolver already holds the upload, so it is only streamed for the hash and read again when stored
+            var digest = MessageDigest.getInstance("SHA-1");
+            try (var content = new DigestInputStream(multipartFile.getInputStream(), digest)) {
+                StreamUtils.drain(content);
+            }
+            file.setHash(new String(Base64.getEncoder().encode(digest.digest())));
+            file.setContent(multipartFile);
         } catch (IOException | NoSuchAlgorithmException e) {
             log.error(e.getMessage(), e);
             throw new InvalidFileContentException();
@@ -66,28 +95,59 @@ public class MappingService {
 
     public FileDao fileToDao(File file) {
         var fileDao = new FileDao();
-        BeanUtils.copyProperties(file, fileDao);
+        FILE_TO_DAO.copy(file, fileDao);
         fileDao.setSecrets(Collections.emptyList());
         return fileDao;
     }
 
     public SimpleFileResponse fileToSimpleResponse(File file) {
         var simpleFileResponse = new SimpleFileResponse();
-        BeanUtils.copyProperties(file, simpleFileResponse);
+        FILE_TO_SIMPLE_RESPONSE.copy(file, simpleFileResponse);
         return simpleFileResponse;
     }
 
-    public SecretResponse secretDaoToResponse(SecretDao secretDao) {
-        return secretToResponse(secretFromDao(secretDao));
+    public ChangeResponse secretChangeDaoToResponse(SecretChangeDao secretChangeDao) {
+        var changeResponse = new ChangeResponse();
+        SECRET_CHANGE_TO_RESPONSE.copy(secretChangeDao, changeResponse);
+        return changeResponse;
+    }
+
+    public SecretDataDao secretDataToDao(String data) {
+        var hash = hashSecretData(data);
+        // the insert keeps a lock on the row until commit, so a concurrent purge cannot delete it before the secret references it
+        secretDataRepository.insertIgnore(hash, secretDataConverter.convertToDatabaseColumn(data));
+        return secretDataRepository.getOne(hash);
     }
 
-    public SimpleSecretResponse secretDaoToSimpleResponse(SecretDao secretDao) {
-        return secretToSimpleResponse(secretFromDao(secretDao));
+    public SecretResponse secretDetailToResponse(SecretDetailProjection secretDetail, List<SecretUserPrivilegeProjection> userPrivileges,
+                                                 List<SimpleFileProjection> files, List<String> tags) {
+        var secretResponse = new SecretResponse();
+        secretResponse.setTitle(secretDetail.getTitle());
+        secretResponse.setSecretId(secretDetail.getSecretId());
+        secretResponse.setData(secretDetail.getData());
+        secretResponse.setType(secretDetail.getType());
+        secretResponse.setVersion(secretDetail.getVersion());
+        secretResponse.setCreationDate(secretDetail.getCreationDate());
+
+        List<SimpleUserPrivilegeResponse> users = new ArrayList<>();
+        for (SecretUserPrivilegeProjection userPrivilege : userPrivileges) {
+            users.add(new SimpleUserPrivilegeResponse(simpleUserToResponse(userPrivilege), userPrivilege.getPrivileged()));
+        }
+        secretResponse.setUsers(users);
+
+        List<SimpleFileResponse> fileResponses = new ArrayList<>();
+        for (SimpleFileProjection file : files) {
+            fileResponses.add(simpleFileToResponse(file));
+        }
+        secretResponse.setFiles(fileResponses);
+        secretResponse.setTags(new ArrayList<>(tags));
+        return secretResponse;
     }
 
     public Secret secretFromDao(SecretDao secretDao) {
         var secret = new Secret();
-        BeanUtils.copyProperties(secretDao, secret);
+        SECRET_FROM_DAO.copy(secretDao, secret);
+        secret.setData(secretDao.getContent().getData());
         List<UserSecretPrivilege> userSecretPrivileges = new ArrayList<>();
         for (UserSecretDao userSecret : secretDao.getUsers()) {
             var user = userFromDao(userSecret.getUser());
@@ -113,14 +173,25 @@ public class MappingService {
 
     public Secret secretFromRequest(SecretRequest secretRequest) {
         var secret = new Secret();
-        BeanUtils.copyProperties(secretRequest, secret);
+        SECRET_FROM_REQUEST.copy(secretRequest, secret);
+        List<String> userIds = new ArrayList<>();
+        for (UserIdSecretPrivilege userIdSecretPrivilege : secretRequest.getUsers()) {
+            userIds.add(userIdSecretPrivilege.getUserId());
+        }
+        var userDaos = findAllById(userIds, userRepository::findAllById, UserDao::getId);
+        var fileDaos = findAllById(secretRequest.getFiles(), fileRepository::findAllById, FileDao::getId);
+        var tagDaos = findAllById(secretRequest.getTags(), tagRepository::findAllById, TagDao::getId);
+
+        var missingUserIds = findMissingIds(userIds, userDaos);
+        var missingFileIds = findMissingIds(secretRequest.getFiles(), fileDaos);
+        var missingTagIds = findMissingIds(secretRequest.getTags(), tagDaos);
+        if (!missingUserIds.isEmpty() || !missingFileIds.isEmpty() || !missingTagIds.isEmpty()) {
+            throw new UnknownReferenceException(missingUserIds, missingFileIds, missingTagIds);
+        }
+
         List<UserSecretPrivilege> users = new ArrayList<>();
         for (UserIdSecretPrivilege userIdSecretPrivilege : secretRequest.getUsers()) {
-            var userDao = userRepository.findOneById(userIdSecretPrivilege.getUserId());
-            if (Objects.isNull(userDao)) {
-                throw new UnknownUserException();
-            }
-            var user = userFromDao(userDao);
+            var user = userFromDao(userDaos.get(userIdSecretPrivilege.getUserId()));
             var privilege = new UserSecretPrivilege(user, userIdSecretPrivilege.getPrivileged());
             users.add(privilege);
         }
@@ -128,30 +199,31 @@ public class MappingService {
 
         List<File> files = new ArrayList<>();
         for (String fileId : secretRequest.getFiles()) {
-            var fileDao = fileRepository.findOneById(fileId);
-            if (Objects.isNull(fileDao)) {
-                throw new UnknownFileException();
-            }
-            files.add(fileFromDao(fileDao));
+            files.add(fileFromDao(fileDaos.get(fileId)));
         }
         secret.setFiles(files);
 
         List<Tag> tags = new ArrayList<>();
         for (String tagId : secretRequest.getTags()) {
-            var tagDao = tagRepository.findOneById(tagId);
-            if (Objects.isNull(tagDao)) {
-                throw new UnknownTagException();
-            }
-            tags.add(tagFromDao(tagRepository.findOneById(tagId)));
+            tags.add(tagFromDao(tagDaos.get(tagId)));
         }
         secret.setTags(tags);
 
         return secret;
     }
 
+    public SecretTagFacetResponse secretTagFacetToResponse(SecretTagFacetProjection secretTagFacet) {
+        var secretTagFacetResponse = new SecretTagFacetResponse();
+        secretTagFacetResponse.setId(secretTagFacet.getTagId());
+        secretTagFacetResponse.setName(secretTagFacet.getName());
+        secretTagFacetResponse.setCount(secretTagFacet.getCount());
+        return secretTagFacetResponse;
+    }
+
     public SecretDao secretToDao(Secret secret) {
         var secretDao = new SecretDao();
-        BeanUtils.copyProperties(secret, secretDao, "id");
+        SECRET_TO_DAO.copy(secret, secretDao);
+        secretDao.setContent(secretDataToDao(secret.getData()));
         List<UserSecretDao> userSecrets = new ArrayList<>();
         for (UserSecretPrivilege userSecretPrivilege : secret.getUsers()) {
             userSecrets.add(new UserSecretDao(secretDao, userToDao(userSecretPrivilege.getUser()), userSecretPrivilege.getPrivilege()));
@@ -175,7 +247,7 @@ public class MappingService {
 
     public SecretResponse secretToResponse(Secret secret) {
         var secretResponse = new SecretResponse();
-        BeanUtils.copyProperties(secret, secretResponse);
+        SECRET_TO_RESPONSE.copy(secret, secretResponse);
         List<SimpleUserPrivilegeResponse> users = new ArrayList<>();
         for (UserSecretPrivilege userSecretPrivilege : secret.getUsers()) {
             var user = userToSimpleResponse(userSecretPrivilege.getUser());
@@ -201,7 +273,7 @@ public class MappingService {
 
     public SimpleSecretResponse secretToSimpleResponse(Secret secret) {
         var simpleSecretResponse = new SimpleSecretResponse();
-        BeanUtils.copyProperties(secret, simpleSecretResponse);
+        SECRET_TO_SIMPLE_RESPONSE.copy(secret, simpleSecretResponse);
 
         List<String> tags = new ArrayList<>();
         for (Tag tag : secret.getTags()) {
@@ -211,59 +283,140 @@ public class MappingService {
         return simpleSecretResponse;
     }
 
+    public SecretVersionResponse secretVersionToResponse(SecretVersionProjection secretVersion) {
+        var secretVersionResponse = new SecretVersionResponse();
+        secretVersionResponse.setVersion(secretVersion.getVersion());
+        secretVersionResponse.setTitle(secretVersion.getTitle());
+        secretVersionResponse.setCreationDate(secretVersion.getCreationDate());
+        var createdBy = new SimpleUserResponse();
+        createdBy.setId(secretVersion.getCreatedById());
+        createdBy.setName(secretVersion.getCreatedByName());
+        secretVersionResponse.setCreatedBy(createdBy);
+        return secretVersionResponse;
+    }
+
+    public SimpleFileResponse simpleFileToResponse(SimpleFileProjection simpleFile) {
+        var simpleFileResponse = new SimpleFileResponse();
+        simpleFileResponse.setId(simpleFile.getId());
+        simpleFileResponse.setFilename(simpleFile.getFilename());
+        simpleFileResponse.setFilesize(simpleFile.getFilesize());
+        simpleFileResponse.setMimetype(simpleFile.getMimetype());
+        return simpleFileResponse;
+    }
+
+    public List<SimpleSecretResponse> simpleSecretsToResponse(List<SimpleSecretProjection> simpleSecrets) {
+        List<SimpleSecretResponse> simpleSecretResponses = new ArrayList<>();
+        SimpleSecretResponse simpleSecretResponse = null;
+        for (SimpleSecretProjection simpleSecret : simpleSecrets) {
+            if (Objects.isNull(simpleSecretResponse) || !simpleSecretResponse.getSecretId().equals(simpleSecret.getSecretId())) {
+                simpleSecretResponse = new SimpleSecretResponse();
+                simpleSecretResponse.setSecretId(simpleSecret.getSecretId());
+                simpleSecretResponse.setTitle(simpleSecret.getTitle());
+                simpleSecretResponse.setTags(new ArrayList<>());
+                simpleSecretResponses.add(simpleSecretResponse);
+            }
+            if (Objects.nonNull(simpleSecret.getTagName())) {
+                simpleSecretResponse.getTags().add(simpleSecret.getTagName());
+            }
+        }
+        return simpleSecretResponses;
+    }
+
+    public SimpleUserResponse simpleUserToResponse(SimpleUserProjection simpleUser) {
+        var simpleUserResponse = new SimpleUserResponse();
+        simpleUserResponse.setId(simpleUser.getId());
+        simpleUserResponse.setName(simpleUser.getName());
+        simpleUserResponse.setEmail(simpleUser.getEmail());
+        simpleUserResponse.setPublicKey(simpleUser.getPublicKey());
+        return simpleUserResponse;
+    }
+
     public TagResponse tagDaoToResponse(TagDao tagDao) {
         var tagResponse = new TagResponse();
-        BeanUtils.copyProperties(tagDao, tagResponse);
+        TAG_TO_RESPONSE.copy(tagDao, tagResponse);
         return tagResponse;
     }
 
     public Tag tagFromDao(TagDao tagDao) {
         var tag = new Tag();
-        BeanUtils.copyProperties(tagDao, tag);
+        TAG_FROM_DAO.copy(tagDao, tag);
         return tag;
     }
 
     public TagDao tagToDao(Tag tag) {
         var tagDao = new TagDao();
-        BeanUtils.copyProperties(tag, tagDao);
+        TAG_TO_DAO.copy(tag, tagDao);
         return tagDao;
     }
 
-    public UserResponse userDaoToResponse(UserDao user) {
-        return userToResponse(userFromDao(user));
+    public TagResponse tagToResponse(TagProjection tag) {
+        var tagResponse = new TagResponse();
+        tagResponse.setId(tag.getId());
+        tagResponse.setName(tag.getName());
+        return tagResponse;
     }
 
-    public SimpleUserResponse userDaoToSimpleResponse(UserDao userDao) {
-        return userToSimpleResponse(userFromDao(userDao));
+    public UserResponse userDaoToResponse(UserDao user) {
+        return userToResponse(userFromDao(user));
     }
 
     public User userFromDao(UserDao userDao) {
         var user = new User();
-        BeanUtils.copyProperties(userDao, user);
+        USER_FROM_DAO.copy(userDao, user);
         return user;
     }
 
     public User userFromRequest(UserRequest userRequest) {
         var user = new User();
-        BeanUtils.copyProperties(userRequest, user);
+        USER_FROM_REQUEST.copy(userRequest, user);
         return user;
     }
 
     public UserDao userToDao(User user) {
         var userDBO = new UserDao();
-        BeanUtils.copyProperties(user, userDBO);
+        USER_TO_DAO.copy(user, userDBO);
         return userDBO;
     }
 
     public UserResponse userToResponse(User user) {
         var userResponse = new UserResponse();
-        BeanUtils.copyProperties(user, userResponse);
+        USER_TO_RESPONSE.copy(user, userResponse);
         return userResponse;
     }
 
+    private static <T> Map<String, T> findAllById(List<String> ids, Function<Set<String>, List<T>> finder, Function<T, String> idGetter) {
+        Map<String, T> found = new HashMap<>();
+        if (ids.isEmpty()) {
+            return found;
+        }
+        for (T dao : finder.apply(new HashSet<>(ids))) {
+            found.put(idGetter.apply(dao), dao);
+        }
+        return found;
+    }
+
+    private static Set<String> findMissingIds(List<String> ids, Map<String, ?> found) {
+        Set<String> missingIds = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (!found.containsKey(id)) {
+                missingIds.add(id);
+            }
+        }
+        return missingIds;
+    }
+
+    private String hashSecretData(String data) {
+        try {
+            return new String(Base64.getEncoder().encode(MessageDigest.getInstance("SHA-256").digest(data.getBytes(StandardCharsets.UTF_8))));
+        } catch (NoSuchAlgorithmException e) {
+            log.error(e.getMessage(), e);
+            throw new IllegalStateException(e);
+        }
+    }
+
     private SimpleUserResponse userToSimpleResponse(User user) {
         var simpleUserResponse = new SimpleUserResponse();
-        BeanUtils.copyProperties(user, simpleUserResponse);
+        USER_TO_SIMPLE_RESPONSE.copy(user, simpleUserResponse);
         return simpleUserResponse;
     }
 }
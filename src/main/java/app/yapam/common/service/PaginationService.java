@@ -0,0 +1,52 @@
+package app.yapam.common.service;
+
+import app.yapam.common.error.InvalidCursorException;
+import app.yapam.config.YapamProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+@Service
+public class PaginationService {
+
+    public static final int UNPAGED = Integer.MAX_VALUE - 1;
+
+    @Autowired private YapamProperties yapamProperties;
+
+    public String decodeCursor(String cursor) {
+        if (Objects.isNull(cursor) || cursor.isEmpty()) {
+            return "";
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    public String encodeCursor(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public int getMaxLimit() {
+        return yapamProperties.getPagination().getMaxLimit();
+    }
+
+    public int resolveLimit(Integer limit, String after) {
+        if (Objects.isNull(limit) && Objects.isNull(after)) {
+            return UNPAGED;
+        }
+        return resolveLimit(limit);
+    }
+
+    public int resolveLimit(Integer limit) {
+        var pagination = yapamProperties.getPagination();
+        if (Objects.isNull(limit) || limit < 1) {
+            return pagination.getDefaultLimit();
+        }
+        return Math.min(limit, pagination.getMaxLimit());
+    }
+}
@@ -1,53 +1,132 @@
 package app.yapam.common.service;
 
+import app.yapam.change.ChangeService;
+import app.yapam.change.model.SecretChangeEvent;
 import app.yapam.common.repository.*;
+import app.yapam.config.YapamProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 @Component("permissionEvaluator")
 public class PermissionEvaluator {
 
-    @Autowired private SecretRepository secretRepository;
+    @Autowired private UserSecretRepository userSecretRepository;
     @Autowired private UserRepository userRepository;
-    @Autowired private FileRepository fileRepository;
+    @Autowired private SecretChangeRepository secretChangeRepository;
+    @Autowired private ChangeService changeService;
+    @Autowired private YapamProperties yapamProperties;
+    @Autowired private MeterRegistry meterRegistry;
 
-    public Boolean hasAccessToFile(String fileId, SecretAccessPermission permission) {
-        var fileDao = fileRepository.findOneById(fileId);
+    private Cache<String, Boolean> secretDecisions;
+    private Cache<String, Boolean> registeredUsers;
+    private volatile long lastChangeId;
 
-        for (SecretDao secretDao : fileDao.getSecrets()) {
-            if (hasAccessToSecret(secretDao.getSecretId(), permission)) {
-                return true;
-            }
+    @PostConstruct
+    void initCaches() {
+        secretDecisions = createCache("yapam.permissions.secrets");
+        registeredUsers = createCache("yapam.permissions.users");
+        lastChangeId = secretChangeRepository.findMaxIdByCreationDateBefore(changeService.getSettledBefore());
+    }
+
+    public Boolean hasAccessToFile(String fileId, SecretAccessPermission permission) {
+        var userId = SecurityContextHolder.getContext().getAuthentication().getName();
+        var firstGrant = PageRequest.of(0, 1);
+        if (permission == SecretAccessPermission.READ) {
+            return !userSecretRepository.findFileGrants(fileId, userId, firstGrant).isEmpty();
         }
-        return false;
+        return !userSecretRepository.findPrivilegedFileGrants(fileId, userId, firstGrant).isEmpty();
     }
 
     public Boolean hasAccessToSecret(String secretId, SecretAccessPermission permission) {
         var userId = SecurityContextHolder.getContext().getAuthentication().getName();
-        var secretDao = secretRepository.findFirstBySecretIdOrderByVersionDesc(secretId);
-
-        var readAccess = hasReadAccess(secretDao, userId);
+        var key = getDecisionKey(userId, secretId, permission);
+        var decision = secretDecisions.getIfPresent(key);
+        if (Objects.nonNull(decision)) {
+            return decision;
+        }
         if (permission == SecretAccessPermission.READ) {
-            return readAccess;
+            decision = userSecretRepository.existsHeadUser(secretId, userId);
+        } else {
+            decision = userSecretRepository.existsPrivilegedHeadUser(secretId, userId);
         }
-
-        return hasWriteAccess(secretDao);
+        // a decision taken inside a transaction may see grants that are never committed
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            secretDecisions.put(key, decision);
+        }
+        return decision;
     }
 
-    private Boolean hasReadAccess(SecretDao secretDao, String userId) {
-        return secretDao.getUsers().stream().allMatch(us -> us.getUser().getId().equals(userId));
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSecretChange(SecretChangeEvent secretChangeEvent) {
+        invalidateDecisions(secretChangeEvent.getChanges());
     }
 
-    private Boolean hasWriteAccess(SecretDao secretDao) {
-        return secretDao.getUsers().stream().allMatch(UserSecretDao::getPrivileged);
+    @Scheduled(fixedDelayString = "${yapam.permissions.poll-interval:5000}")
+    public synchronized void poll() {
+        var batchSize = yapamProperties.getPermissions().getBatchSize();
+        List<SecretChangeDao> changes;
+        List<SecretChangeDao> settled;
+        do {
+            changes = secretChangeRepository.findAllByIdGreaterThan(lastChangeId, PageRequest.of(0, batchSize, Sort.by("id")));
+            settled = changeService.getSettledChanges(changes);
+            invalidateDecisions(changes);
+            if (!settled.isEmpty()) {
+                lastChangeId = settled.get(settled.size() - 1).getId();
+            }
+        } while (changes.size() == batchSize && settled.size() == changes.size());
     }
 
     public Boolean registeredUser() {
-        var userDao = userRepository.findOneById(SecurityContextHolder.getContext().getAuthentication().getName());
-        return !Objects.isNull(userDao);
+        var userId = SecurityContextHolder.getContext().getAuthentication().getName();
+        if (Objects.nonNull(registeredUsers.getIfPresent(userId))) {
+            return true;
+        }
+        var registered = !Objects.isNull(userRepository.findOneById(userId));
+        if (registered) {
+            registeredUsers.put(userId, true);
+        }
+        return registered;
+    }
+
+    private Cache<String, Boolean> createCache(String name) {
+        var permissions = yapamProperties.getPermissions();
+        Cache<String, Boolean> cache = Caffeine.newBuilder()
+                .maximumSize(permissions.getCacheSize())
+                .expireAfterWrite(Duration.ofMillis(permissions.getCacheTtl()))
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+
+    private String getDecisionKey(String userId, String secretId, SecretAccessPermission permission) {
+        return userId + ":" + secretId + ":" + permission;
+    }
+
+    private void invalidateDecisions(List<SecretChangeDao> changes) {
+        List<String> keys = new ArrayList<>();
+        for (SecretChangeDao change : changes) {
+            for (SecretAccessPermission permission : SecretAccessPermission.values()) {
+                keys.add(getDecisionKey(change.getUserId(), change.getSecretId(), permission));
+            }
+        }
+        secretDecisions.invalidateAll(keys);
     }
 
     public enum SecretAccessPermission {
@@ -0,0 +1,255 @@
+package app.yapam.common.service;
+
+import app.yapam.common.repository.SecretSearchDocument;
+import app.yapam.secret.model.SecretTypeEnum;
+import app.yapam.secret.model.response.SecretTagFacetResponse;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class SecretSearchIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<IndexedDocument> documents = new ArrayList<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final Map<Long, RoaringBitmap> grams = new HashMap<>();
+    private final Map<String, RoaringBitmap> readers = new HashMap<>();
+    private final Map<SecretTypeEnum, RoaringBitmap> types = new EnumMap<>(SecretTypeEnum.class);
+    private final Map<String, RoaringBitmap> tags = new HashMap<>();
+    private final Map<String, String> tagNames = new HashMap<>();
+
+    public SecretSearchIndex(Collection<SecretSearchDocument> secretSearchDocuments) {
+        secretSearchDocuments.forEach(this::put);
+        grams.values().forEach(RoaringBitmap::runOptimize);
+        readers.values().forEach(RoaringBitmap::runOptimize);
+        types.values().forEach(RoaringBitmap::runOptimize);
+        tags.values().forEach(RoaringBitmap::runOptimize);
+    }
+
+    public List<SecretTagFacetResponse> countTags(String userId) {
+        List<SecretTagFacetResponse> tagFacets = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            var readable = readers.get(userId);
+            if (Objects.isNull(readable)) {
+                return tagFacets;
+            }
+            tags.forEach((tagId, tagged) -> {
+                var count = RoaringBitmap.andCardinality(readable, tagged);
+                if (count > 0) {
+                    var tagFacet = new SecretTagFacetResponse();
+                    tagFacet.setId(tagId);
+                    tagFacet.setName(tagNames.get(tagId));
+                    tagFacet.setCount((long) count);
+                    tagFacets.add(tagFacet);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        tagFacets.sort(Comparator.comparing(SecretTagFacetResponse::getName));
+        return tagFacets;
+    }
+
+    public Map<SecretTypeEnum, Long> countTypes(String userId) {
+        Map<SecretTypeEnum, Long> typeCounts = new EnumMap<>(SecretTypeEnum.class);
+        lock.readLock().lock();
+        try {
+            var readable = readers.get(userId);
+            for (SecretTypeEnum type : SecretTypeEnum.values()) {
+                var typed = types.get(type);
+                typeCounts.put(type, Objects.isNull(readable) || Objects.isNull(typed) ? 0L : RoaringBitmap.andCardinality(readable, typed));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return typeCounts;
+    }
+
+    public long getSizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long size = 0;
+            for (Map<?, RoaringBitmap> bitmaps : List.of(grams, readers, types, tags)) {
+                for (RoaringBitmap bitmap : bitmaps.values()) {
+                    size += bitmap.getLongSizeInBytes();
+                }
+            }
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(SecretSearchDocument secretSearchDocument) {
+        var fields = new ArrayList<String>();
+        fields.add(secretSearchDocument.getTitle().toLowerCase());
+        secretSearchDocument.getTags().values().forEach(tag -> fields.add(tag.toLowerCase()));
+        var document = new IndexedDocument(secretSearchDocument, fields.toArray(new String[0]), extractGrams(fields));
+
+        lock.writeLock().lock();
+        try {
+            var ordinal = ordinals.get(document.secretId);
+            if (Objects.isNull(ordinal)) {
+                ordinal = freeOrdinals.isEmpty() ? documents.size() : freeOrdinals.pop();
+                ordinals.put(document.secretId, ordinal);
+                if (ordinal == documents.size()) {
+                    documents.add(null);
+                }
+            } else {
+                unlink(ordinal, documents.get(ordinal));
+            }
+            documents.set(ordinal, document);
+            for (long gram : document.grams) {
+                grams.computeIfAbsent(gram, key -> new RoaringBitmap()).add(ordinal);
+            }
+            for (String userId : document.userIds) {
+                readers.computeIfAbsent(userId, key -> new RoaringBitmap()).add(ordinal);
+            }
+            if (Objects.nonNull(document.type)) {
+                types.computeIfAbsent(document.type, key -> new RoaringBitmap()).add(ordinal);
+            }
+            for (Map.Entry<String, String> tag : secretSearchDocument.getTags().entrySet()) {
+                tags.computeIfAbsent(tag.getKey(), key -> new RoaringBitmap()).add(ordinal);
+                tagNames.put(tag.getKey(), tag.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String secretId) {
+        lock.writeLock().lock();
+        try {
+            var ordinal = ordinals.remove(secretId);
+            if (Objects.nonNull(ordinal)) {
+                unlink(ordinal, documents.get(ordinal));
+                documents.set(ordinal, null);
+                freeOrdinals.push(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<String> search(String userId, List<String> keywords, String after, int limit) {
+        List<String> secretIds = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            var readable = readers.get(userId);
+            if (Objects.isNull(readable)) {
+                return secretIds;
+            }
+            var matches = new RoaringBitmap();
+            for (String keyword : keywords) {
+                var needle = keyword.toLowerCase();
+                var candidates = readable;
+                if (needle.length() >= GRAM_LENGTH) {
+                    for (long gram : extractGrams(List.of(needle))) {
+                        var postings = grams.get(gram);
+                        candidates = Objects.isNull(postings) ? new RoaringBitmap() : RoaringBitmap.and(candidates, postings);
+                        if (candidates.isEmpty()) {
+                            break;
+                        }
+                    }
+                }
+                var iterator = candidates.getIntIterator();
+                while (iterator.hasNext()) {
+                    var candidate = iterator.next();
+                    if (!matches.contains(candidate) && documents.get(candidate).contains(needle)) {
+                        matches.add(candidate);
+                    }
+                }
+            }
+            var iterator = matches.getIntIterator();
+            while (iterator.hasNext()) {
+                var secretId = documents.get(iterator.next()).secretId;
+                if (secretId.compareTo(after) > 0) {
+                    secretIds.add(secretId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Collections.sort(secretIds);
+        return secretIds.size() > limit ? new ArrayList<>(secretIds.subList(0, limit)) : secretIds;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long[] extractGrams(List<String> fields) {
+        var extracted = new HashSet<Long>();
+        for (String field : fields) {
+            for (int i = 0; i + GRAM_LENGTH <= field.length(); i++) {
+                extracted.add(((long) field.charAt(i) << 32) | ((long) field.charAt(i + 1) << 16) | field.charAt(i + 2));
+            }
+        }
+        return extracted.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static <K> void unlink(Map<K, RoaringBitmap> bitmaps, K key, int ordinal) {
+        var bitmap = bitmaps.get(key);
+        bitmap.remove(ordinal);
+        if (bitmap.isEmpty()) {
+            bitmaps.remove(key);
+        }
+    }
+
+    private void unlink(int ordinal, IndexedDocument document) {
+        for (long gram : document.grams) {
+            unlink(grams, gram, ordinal);
+        }
+        for (String userId : document.userIds) {
+            unlink(readers, userId, ordinal);
+        }
+        if (Objects.nonNull(document.type)) {
+            unlink(types, document.type, ordinal);
+        }
+        for (String tagId : document.tagIds) {
+            unlink(tags, tagId, ordinal);
+            if (!tags.containsKey(tagId)) {
+                tagNames.remove(tagId);
+            }
+        }
+    }
+
+    private static class IndexedDocument {
+
+        private final String secretId;
+        private final SecretTypeEnum type;
+        private final String[] fields;
+        private final long[] grams;
+        private final Set<String> userIds;
+        private final Set<String> tagIds;
+
+        private IndexedDocument(SecretSearchDocument secretSearchDocument, String[] fields, long[] grams) {
+            this.secretId = secretSearchDocument.getSecretId();
+            this.type = secretSearchDocument.getType();
+            this.fields = fields;
+            this.grams = grams;
+            this.userIds = new HashSet<>(secretSearchDocument.getUserIds());
+            this.tagIds = new HashSet<>(secretSearchDocument.getTags().keySet());
+        }
+
+        private boolean contains(String needle) {
+            for (String field : fields) {
+                if (field.contains(needle)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
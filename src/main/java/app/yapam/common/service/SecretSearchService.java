@@ -0,0 +1,103 @@
+package app.yapam.common.service;
+
+import app.yapam.change.ChangeService;
+import app.yapam.change.model.SecretChangeEvent;
+import app.yapam.common.repository.SecretChangeDao;
+import app.yapam.common.repository.SecretChangeRepository;
+import app.yapam.common.repository.SecretRepository;
+import app.yapam.common.repository.SecretSearchDocument;
+import app.yapam.config.YapamProperties;
+import app.yapam.secret.model.SecretTypeEnum;
+import app.yapam.secret.model.response.SecretTagFacetResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class SecretSearchService {
+
+    private volatile SecretSearchIndex index;
+    private volatile long lastChangeId;
+
+    @Autowired private SecretRepository secretRepository;
+    @Autowired private SecretChangeRepository secretChangeRepository;
+    @Autowired private ChangeService changeService;
+    @Autowired private YapamProperties yapamProperties;
+
+    public List<SecretTagFacetResponse> countTags(String userId) {
+        return index.countTags(userId);
+    }
+
+    public Map<SecretTypeEnum, Long> countTypes(String userId) {
+        return index.countTypes(userId);
+    }
+
+    public boolean isReady() {
+        return Objects.nonNull(index);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSecretChange(SecretChangeEvent secretChangeEvent) {
+        if (isReady()) {
+            refresh(secretChangeEvent.getChanges().stream().map(SecretChangeDao::getSecretId).collect(Collectors.toSet()));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${yapam.search.poll-interval:5000}")
+    public synchronized void poll() {
+        if (!isReady()) {
+            return;
+        }
+        List<SecretChangeDao> changes;
+        List<SecretChangeDao> settled;
+        do {
+            changes = secretChangeRepository.findAllByIdGreaterThan(lastChangeId,
+                    PageRequest.of(0, yapamProperties.getSearch().getBatchSize(), Sort.by("id")));
+            settled = changeService.getSettledChanges(changes);
+            if (!changes.isEmpty()) {
+                refresh(changes.stream().map(SecretChangeDao::getSecretId).collect(Collectors.toSet()));
+            }
+            if (!settled.isEmpty()) {
+                lastChangeId = settled.get(settled.size() - 1).getId();
+            }
+        } while (changes.size() == yapamProperties.getSearch().getBatchSize() && settled.size() == changes.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${yapam.search.rebuild-cron:0 0 * * * *}")
+    public synchronized void rebuild() {
+        if (!yapamProperties.getSearch().getIndexEnabled()) {
+            return;
+        }
+        var changeId = secretChangeRepository.findMaxIdByCreationDateBefore(changeService.getSettledBefore());
+        var rebuilt = new SecretSearchIndex(secretRepository.findSearchDocuments(null));
+        index = rebuilt;
+        lastChangeId = changeId;
+        log.info("Rebuilt search index with {} secrets in {} bytes", rebuilt.size(), rebuilt.getSizeInBytes());
+    }
+
+    public List<String> search(String userId, List<String> keywords, String after, int limit) {
+        return index.search(userId, keywords, after, limit);
+    }
+
+    private void refresh(Set<String> secretIds) {
+        var current = index;
+        var documents = secretRepository.findSearchDocuments(secretIds);
+        for (SecretSearchDocument document : documents) {
+            current.put(document);
+            secretIds.remove(document.getSecretId());
+        }
+        secretIds.forEach(current::remove);
+    }
+}
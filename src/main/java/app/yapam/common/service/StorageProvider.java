@@ -10,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 
+import java.io.InputStream;
 import java.net.URI;
 
 public abstract class StorageProvider {
@@ -52,7 +53,7 @@ public abstract class StorageProvider {
     }
 
     @SuppressWarnings("squid:S00112")
-    public abstract void storeContent(byte[] content, String filepath) throws Exception;
+    public abstract void storeContent(InputStream content, String filepath) throws Exception;
 
     public void storeFile(File file, String fileId) {
         try {
@@ -60,7 +61,9 @@ public abstract class StorageProvider {
             var filePath = getFilePath(fileDao.getHash());
             if (!existsContent(filePath)) {
                 createDirectories(filePath);
-                storeContent(file.getContent(), filePath);
+                try (var content = file.getContent().getInputStream()) {
+                    storeContent(content, filePath);
+                }
             }
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -7,7 +7,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 
@@ -45,9 +44,7 @@ public class DropboxStorageProvider extends StorageProvider {
     }
 
     @Override
-    public void storeContent(byte[] content, String filepath) throws Exception {
-        try (InputStream in = new ByteArrayInputStream(content)) {
-            client.files().uploadBuilder(filepath).uploadAndFinish(in);
-        }
+    public void storeContent(InputStream content, String filepath) throws Exception {
+        client.files().uploadBuilder(filepath).uploadAndFinish(content);
     }
 }
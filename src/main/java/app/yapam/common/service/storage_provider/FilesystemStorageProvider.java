@@ -5,6 +5,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 
@@ -29,8 +30,8 @@ public class FilesystemStorageProvider extends StorageProvider {
     }
 
     @Override
-    public void storeContent(byte[] content, String filepath) throws IOException {
+    public void storeContent(InputStream content, String filepath) throws IOException {
         var path = Paths.get(filepath);
-        Files.write(path, content);
+        Files.copy(content, path);
     }
 }
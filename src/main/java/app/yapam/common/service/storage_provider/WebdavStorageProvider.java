@@ -7,6 +7,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 @ConditionalOnProperty(name = "yapam.storage-provider.type", havingValue = "WEBDAV")
 @Service
@@ -30,7 +31,7 @@ public class WebdavStorageProvider extends StorageProvider {
     }
 
     @Override
-    public void storeContent(byte[] content, String filepath) throws IOException {
+    public void storeContent(InputStream content, String filepath) throws IOException {
         sardine.put(filepath, content);
     }
 }
@@ -0,0 +1,20 @@
+package app.yapam.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class EventConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor eventExecutor(YapamProperties yapamProperties) {
+        var events = yapamProperties.getEvents();
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("yapam-events-");
+        executor.setCorePoolSize(events.getSenderThreads());
+        executor.setMaxPoolSize(events.getSenderThreads());
+        executor.setQueueCapacity(events.getSenderQueueCapacity());
+        return executor;
+    }
+}
@@ -21,6 +21,15 @@ public class YapamProperties {
     private DatasourceProperties datasource;
     private StorageProvider storageProvider;
     private IdentityProviderType identityProvider;
+    private PaginationProperties pagination = new PaginationProperties();
+    private BatchProperties batch = new BatchProperties();
+    private ChangeProperties changes = new ChangeProperties();
+    private RetentionProperties retention = new RetentionProperties();
+    private EventProperties events = new EventProperties();
+    private CompressionProperties compression = new CompressionProperties();
+    private SearchProperties search = new SearchProperties();
+    private PurgeProperties purge = new PurgeProperties();
+    private PermissionProperties permissions = new PermissionProperties();
 
     public enum IdentityProviderType {
         KEYCLOAK
@@ -56,6 +65,87 @@ public class YapamProperties {
         private String url;
     }
 
+    @Getter
+    @Setter
+    public static class BatchProperties {
+        private Integer maxOperations = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class ChangeProperties {
+        private Long watermarkLag = 5000L;
+    }
+
+    @Getter
+    @Setter
+    public static class CompressionProperties {
+        private Boolean enabled = false;
+        private String cron = "0 30 3 * * *";
+        private Integer minSize = 256;
+        private Integer batchSize = 200;
+        private Long batchPause = 200L;
+    }
+
+    @Getter
+    @Setter
+    public static class EventProperties {
+        private Long timeout = 1800000L;
+        private Long heartbeatInterval = 30000L;
+        private Integer senderThreads = 4;
+        private Integer senderQueueCapacity = 10000;
+        private Integer maxPendingEvents = 100;
+        private Long sendTimeout = 10000L;
+        private Long pollInterval = 5000L;
+        private Integer batchSize = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class PaginationProperties {
+        private Integer defaultLimit = 100;
+        private Integer maxLimit = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class PermissionProperties {
+        private Long cacheSize = 10000L;
+        private Long cacheTtl = 300000L;
+        private Long pollInterval = 5000L;
+        private Integer batchSize = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class PurgeProperties {
+        private Boolean enabled = true;
+        private Long interval = 60000L;
+        private Integer batchSize = 500;
+        private Long batchPause = 200L;
+        private Integer maxBatches = 20;
+    }
+
+    @Getter
+    @Setter
+    public static class RetentionProperties {
+        private Boolean enabled = false;
+        private String cron = "0 0 3 * * *";
+        private Integer keepVersions;
+        private Integer keepDays;
+        private Integer batchSize = 500;
+        private Long batchPause = 200L;
+    }
+
+    @Getter
+    @Setter
+    public static class SearchProperties {
+        private Boolean indexEnabled = true;
+        private Long pollInterval = 5000L;
+        private String rebuildCron = "0 0 * * * *";
+        private Integer batchSize = 1000;
+    }
+
     @Getter
     @Setter
     @Component
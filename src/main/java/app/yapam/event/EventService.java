@@ -0,0 +1,218 @@
+package app.yapam.event;
+
+import app.yapam.change.ChangeService;
+import app.yapam.change.model.SecretChangeEvent;
+import app.yapam.common.repository.SecretChangeDao;
+import app.yapam.common.repository.SecretChangeRepository;
+import app.yapam.common.service.MappingService;
+import app.yapam.common.service.PaginationService;
+import app.yapam.config.YapamProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class EventService {
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Set<Long> sentChangeIds = ConcurrentHashMap.newKeySet();
+    private volatile long lastChangeId;
+
+    @Autowired private YapamProperties yapamProperties;
+    @Autowired private SecretChangeRepository secretChangeRepository;
+    @Autowired private ChangeService changeService;
+    @Autowired private MappingService mappingService;
+    @Autowired private PaginationService paginationService;
+
+    @Qualifier("eventExecutor")
+    @Autowired private TaskExecutor eventExecutor;
+
+    @PostConstruct
+    void initCursor() {
+        lastChangeId = secretChangeRepository.findMaxIdByCreationDateBefore(changeService.getSettledBefore());
+    }
+
+    @PreAuthorize("@permissionEvaluator.registeredUser()")
+    SseEmitter subscribe() {
+        var userId = SecurityContextHolder.getContext().getAuthentication().getName();
+        var emitter = new SseEmitter(yapamProperties.getEvents().getTimeout());
+        var subscriber = new Subscriber(userId, emitter);
+        emitter.onCompletion(() -> removeSubscriber(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> removeSubscriber(subscriber));
+        subscribers.computeIfAbsent(userId, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSecretChange(SecretChangeEvent secretChangeEvent) {
+        for (SecretChangeDao change : secretChangeEvent.getChanges()) {
+            if (change.getId() > lastChangeId) {
+                sendChange(change);
+            }
+        }
+    }
+
+    // changes committed on other instances only reach this node through the change feed
+    @Scheduled(fixedDelayString = "${yapam.events.poll-interval:5000}")
+    public synchronized void poll() {
+        var batchSize = yapamProperties.getEvents().getBatchSize();
+        List<SecretChangeDao> changes;
+        List<SecretChangeDao> settled;
+        do {
+            changes = secretChangeRepository.findAllByIdGreaterThan(lastChangeId, PageRequest.of(0, batchSize, Sort.by("id")));
+            settled = changeService.getSettledChanges(changes);
+            settled.forEach(this::sendChange);
+            if (!settled.isEmpty()) {
+                lastChangeId = settled.get(settled.size() - 1).getId();
+                sentChangeIds.removeIf(changeId -> changeId <= lastChangeId);
+            }
+        } while (changes.size() == batchSize && settled.size() == changes.size());
+    }
+
+    @Scheduled(fixedDelayString = "${yapam.events.heartbeat-interval:30000}")
+    public void sendHeartbeat() {
+        var sendTimeout = yapamProperties.getEvents().getSendTimeout();
+        subscribers.values().forEach(userSubscribers -> {
+            for (Subscriber subscriber : userSubscribers) {
+                if (subscriber.isStalled(sendTimeout)) {
+                    subscriber.close();
+                } else {
+                    subscriber.enqueue(SseEmitter.event().comment("heartbeat"));
+                }
+            }
+        });
+    }
+
+    int getSubscriberCount(String userId) {
+        var userSubscribers = subscribers.get(userId);
+        return userSubscribers == null ? 0 : userSubscribers.size();
+    }
+
+    private void removeSubscriber(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (key, userSubscribers) -> {
+            userSubscribers.remove(subscriber);
+            return userSubscribers.isEmpty() ? null : userSubscribers;
+        });
+    }
+
+    private void sendChange(SecretChangeDao change) {
+        // a local commit is sent right away and must not be sent again once the feed reaches it
+        if (!sentChangeIds.add(change.getId())) {
+            return;
+        }
+        var userSubscribers = subscribers.get(change.getUserId());
+        if (userSubscribers == null) {
+            return;
+        }
+        var changeId = paginationService.encodeCursor(String.valueOf(change.getId()));
+        var changeResponse = mappingService.secretChangeDaoToResponse(change);
+        for (Subscriber subscriber : userSubscribers) {
+            subscriber.enqueue(SseEmitter.event().id(changeId).name("change").data(changeResponse, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    // sends run on the event executor in order per emitter, so a slow client never blocks the caller
+    private class Subscriber {
+
+        private final String userId;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> pendingEvents = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile long sendStartedAt;
+        private volatile boolean closed;
+
+        private Subscriber(String userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private void close() {
+            closed = true;
+            removeSubscriber(this);
+            pendingEvents.clear();
+            // a blocked send holds the emitter until the connector's write timeout aborts it, then drain completes the emitter
+            if (draining.compareAndSet(false, true)) {
+                emitter.complete();
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && Objects.nonNull(event = pendingEvents.poll())) {
+                    pendingCount.decrementAndGet();
+                    sendStartedAt = System.currentTimeMillis();
+                    emitter.send(event);
+                    sendStartedAt = 0;
+                }
+            } catch (IOException | IllegalStateException e) {
+                closed = true;
+                removeSubscriber(this);
+                emitter.completeWithError(e);
+                return;
+            }
+            if (closed) {
+                emitter.complete();
+                return;
+            }
+            draining.set(false);
+            if (!pendingEvents.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (pendingCount.incrementAndGet() > yapamProperties.getEvents().getMaxPendingEvents()) {
+                close();
+                return;
+            }
+            pendingEvents.add(event);
+            scheduleDrain();
+        }
+
+        private boolean isStalled(long sendTimeout) {
+            var startedAt = sendStartedAt;
+            return startedAt != 0 && System.currentTimeMillis() - startedAt > sendTimeout;
+        }
+
+        private void scheduleDrain() {
+            if (closed || !draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                eventExecutor.execute(this::drain);
+            } catch (TaskRejectedException e) {
+                draining.set(false);
+                close();
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package app.yapam.file.model;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.core.io.InputStreamSource;
 
 @Getter
 @Setter
@@ -10,7 +11,7 @@ public class File {
     private String filename;
     private String id;
     private Long filesize;
-    private byte[] content;
+    private InputStreamSource content;
     private String hash;
     private String mimetype;
 }
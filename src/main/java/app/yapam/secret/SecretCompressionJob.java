@@ -0,0 +1,45 @@
+package app.yapam.secret;
+
+import app.yapam.config.YapamProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "yapam.compression.enabled", havingValue = "true")
+public class SecretCompressionJob {
+
+    @Autowired private SecretCompressionService secretCompressionService;
+    @Autowired private YapamProperties yapamProperties;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Scheduled(cron = "${yapam.compression.cron:0 30 3 * * *}")
+    public void compress() {
+        var sample = Timer.start(meterRegistry);
+        var batches = meterRegistry.counter("yapam.compression.batches");
+        var after = "";
+        do {
+            after = secretCompressionService.compressBatch(after);
+            batches.increment();
+        } while (Objects.nonNull(after) && pause());
+        sample.stop(meterRegistry.timer("yapam.compression.duration"));
+        log.info("Compression of secret payloads finished");
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(yapamProperties.getCompression().getBatchPause());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
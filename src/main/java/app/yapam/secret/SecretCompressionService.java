@@ -0,0 +1,33 @@
+package app.yapam.secret;
+
+import app.yapam.common.repository.SecretDataConverter;
+import app.yapam.common.repository.SecretDataDao;
+import app.yapam.common.repository.SecretDataRepository;
+import app.yapam.config.YapamProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+
+@Service
+public class SecretCompressionService {
+
+    @Autowired private YapamProperties yapamProperties;
+    @Autowired private SecretDataRepository secretDataRepository;
+    @Autowired private SecretDataConverter secretDataConverter;
+
+    @Transactional
+    public String compressBatch(String after) {
+        var hashes = secretDataRepository.findUncompressedHashes(after, yapamProperties.getCompression().getBatchSize());
+        if (hashes.isEmpty()) {
+            return null;
+        }
+        for (SecretDataDao secretDataDao : secretDataRepository.findAllById(hashes)) {
+            var column = secretDataConverter.convertToDatabaseColumn(secretDataDao.getData());
+            if (secretDataConverter.isCompressed(column)) {
+                secretDataRepository.updateData(secretDataDao.getHash(), column);
+            }
+        }
+        return hashes.get(hashes.size() - 1);
+    }
+}
@@ -1,20 +1,40 @@
 package app.yapam.secret;
 
+import app.yapam.common.service.JsonListWriter;
+import app.yapam.secret.model.request.SecretBatchRequest;
 import app.yapam.secret.model.request.SecretRequest;
+import app.yapam.secret.model.response.SecretBatchResponse;
+import app.yapam.secret.model.response.SecretFacetResponse;
 import app.yapam.secret.model.response.SecretResponse;
 import app.yapam.secret.model.response.SecretResponseWrapper;
+import app.yapam.secret.model.response.SecretVersionResponseWrapper;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 public class SecretController {
 
     @Autowired private SecretService secretService;
+    @Autowired private JsonListWriter jsonListWriter;
+
+    @ApiOperation(value = "Create, update, delete and share many secrets, each operation in its own transaction")
+    @PostMapping(value = "/api/secrets:batch", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    @ResponseBody
+    public SecretBatchResponse batchSecrets(@RequestBody SecretBatchRequest secretBatchRequest) {
+        return secretService.batchSecrets(secretBatchRequest);
+    }
 
     @ApiOperation(value = "Create a new secret")
     @PostMapping(value = "/api/secrets", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
@@ -30,13 +50,19 @@ public class SecretController {
         secretService.deleteSecret(secretId);
     }
 
-    @ApiOperation(value = "Get all secrets accessible for a user")
+    @ApiOperation(value = "Get all secrets accessible for a user", notes = "Keywords match titles and tag names case-insensitively")
     @GetMapping(value = "/api/secrets", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
     @ResponseBody
-    public SecretResponseWrapper getAllSecrets(@RequestParam(value = "keyword", defaultValue = "", required = false) String[] keywords) {
-        var secretResponseWrapper = new SecretResponseWrapper();
-        secretResponseWrapper.setSecrets(secretService.getAllSecrets(keywords));
-        return secretResponseWrapper;
+    public SecretResponseWrapper getAllSecrets(@RequestParam(value = "keyword", defaultValue = "", required = false) String[] keywords,
+                                               @RequestParam(value = "limit", required = false) Integer limit,
+                                               @RequestParam(value = "after", required = false) String after,
+                                               WebRequest webRequest,
+                                               HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        if (webRequest.checkNotModified(secretService.getAllSecretsETag(keywords, limit, after))) {
+            return null;
+        }
+        return secretService.getAllSecrets(keywords, limit, after);
     }
 
     @ApiOperation(value = "Get a single secret by id")
@@ -46,10 +72,52 @@ public class SecretController {
     @GetMapping(value = "/api/secrets/{secretId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
     @ResponseBody
     public SecretResponse getSecretById(@PathVariable String secretId,
-                                        @RequestParam(value = "version", defaultValue = "0") Integer version) {
+                                        @RequestParam(value = "version", defaultValue = "0") Integer version,
+                                        WebRequest webRequest,
+                                        HttpServletResponse response) {
+        if (version == 0) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        } else {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().getHeaderValue() + ", immutable");
+        }
+        if (webRequest.checkNotModified(secretService.getSecretETag(secretId, version))) {
+            return null;
+        }
         return secretService.getSecretById(secretId, version);
     }
 
+    @ApiOperation(value = "Get secret counts per type and tag")
+    @GetMapping(value = "/api/secrets/facets", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    @ResponseBody
+    public SecretFacetResponse getSecretFacets(HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        return secretService.getSecretFacets();
+    }
+
+    @ApiOperation(value = "Get the version history of a secret")
+    @ApiImplicitParams(
+            @ApiImplicitParam(name = "secretId", value = "Internal id of the secret", required = true)
+    )
+    @GetMapping(value = "/api/secrets/{secretId}/versions", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    @ResponseBody
+    public SecretVersionResponseWrapper getSecretVersions(@PathVariable String secretId) {
+        return secretService.getSecretVersions(secretId);
+    }
+
+    @ApiOperation(value = "Stream all secrets accessible for a user without loading them into memory at once")
+    @GetMapping(value = "/api/secrets", params = "stream=true", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public void streamAllSecrets(@RequestParam(value = "keyword", defaultValue = "", required = false) String[] keywords,
+                                 @RequestParam(value = "limit", required = false) Integer limit,
+                                 @RequestParam(value = "after", required = false) String after,
+                                 WebRequest webRequest,
+                                 HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        if (webRequest.checkNotModified(secretService.getAllSecretsETag(keywords, limit, after))) {
+            return;
+        }
+        jsonListWriter.write(response, "secrets", secrets -> secretService.streamAllSecrets(keywords, limit, after, secrets));
+    }
+
     @ApiOperation(value = "Update a secret by id")
     @ApiImplicitParams(
             @ApiImplicitParam(name = "secretId", value = "Internal id of the secret", required = true)
@@ -57,7 +125,8 @@ public class SecretController {
     @PutMapping(value = "/api/secrets/{secretId}", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
     @ResponseBody
     public SecretResponse updateSecret(@PathVariable(value = "secretId") String secretId,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                        @RequestBody SecretRequest secret) {
-        return secretService.updateSecret(secretId, secret);
+        return secretService.updateSecret(secretId, secret, ifMatch);
     }
 }
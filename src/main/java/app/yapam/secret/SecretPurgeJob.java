@@ -0,0 +1,47 @@
+package app.yapam.secret;
+
+import app.yapam.config.YapamProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "yapam.purge.enabled", havingValue = "true", matchIfMissing = true)
+public class SecretPurgeJob {
+
+    @Autowired private SecretPurgeService secretPurgeService;
+    @Autowired private YapamProperties yapamProperties;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Scheduled(fixedDelayString = "${yapam.purge.interval:60000}")
+    public void purge() {
+        var purgedVersions = meterRegistry.counter("yapam.purge.deleted.versions");
+        var purge = yapamProperties.getPurge();
+        var total = 0;
+        var batches = 0;
+        int purged;
+        do {
+            purged = secretPurgeService.purgeBatch();
+            purgedVersions.increment(purged);
+            total += purged;
+            batches++;
+        } while (purged >= purge.getBatchSize() && batches < purge.getMaxBatches() && pause());
+        if (total > 0) {
+            log.info("Purge removed {} versions of deleted secrets", total);
+        }
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(yapamProperties.getPurge().getBatchPause());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
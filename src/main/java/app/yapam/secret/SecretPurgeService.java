@@ -0,0 +1,39 @@
+package app.yapam.secret;
+
+import app.yapam.common.repository.SecretDataRepository;
+import app.yapam.common.repository.SecretRepository;
+import app.yapam.common.repository.SecretTombstoneRepository;
+import app.yapam.config.YapamProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+
+@Service
+public class SecretPurgeService {
+
+    @Autowired private YapamProperties yapamProperties;
+    @Autowired private SecretRepository secretRepository;
+    @Autowired private SecretDataRepository secretDataRepository;
+    @Autowired private SecretTombstoneRepository secretTombstoneRepository;
+
+    @Transactional
+    public int purgeBatch() {
+        var batchSize = yapamProperties.getPurge().getBatchSize();
+        var ids = secretRepository.findDeletedIds(PageRequest.of(0, batchSize));
+        if (!ids.isEmpty()) {
+            var hashes = secretDataRepository.findHashesByIdIn(ids);
+            secretDataRepository.lockByHashIn(hashes);
+            secretRepository.deleteUserSecretsByIdIn(ids);
+            secretRepository.deleteSecretFilesByIdIn(ids);
+            secretRepository.deleteSecretTagsByIdIn(ids);
+            secretRepository.deleteVersionsByIdIn(ids);
+            secretDataRepository.deleteUnreferencedByHashIn(hashes);
+        }
+        if (ids.size() < batchSize) {
+            secretTombstoneRepository.deletePurged();
+        }
+        return ids.size();
+    }
+}
@@ -0,0 +1,47 @@
+package app.yapam.secret;
+
+import app.yapam.config.YapamProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "yapam.retention.enabled", havingValue = "true")
+public class SecretRetentionJob {
+
+    @Autowired private SecretRetentionService secretRetentionService;
+    @Autowired private YapamProperties yapamProperties;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Scheduled(cron = "${yapam.retention.cron:0 0 3 * * *}")
+    public void compact() {
+        var sample = Timer.start(meterRegistry);
+        var deletedVersions = meterRegistry.counter("yapam.retention.deleted.versions");
+        var batches = meterRegistry.counter("yapam.retention.batches");
+        var total = 0;
+        int deleted;
+        do {
+            deleted = secretRetentionService.compactBatch();
+            deletedVersions.increment(deleted);
+            batches.increment();
+            total += deleted;
+        } while (deleted >= yapamProperties.getRetention().getBatchSize() && pause());
+        sample.stop(meterRegistry.timer("yapam.retention.duration"));
+        log.info("Retention removed {} secret versions", total);
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(yapamProperties.getRetention().getBatchPause());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
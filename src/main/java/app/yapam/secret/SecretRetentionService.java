@@ -0,0 +1,43 @@
+package app.yapam.secret;
+
+import app.yapam.common.repository.SecretDataRepository;
+import app.yapam.common.repository.SecretRepository;
+import app.yapam.config.YapamProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Service
+public class SecretRetentionService {
+
+    @Autowired private YapamProperties yapamProperties;
+    @Autowired private SecretRepository secretRepository;
+    @Autowired private SecretDataRepository secretDataRepository;
+
+    @Transactional
+    public int compactBatch() {
+        var retention = yapamProperties.getRetention();
+        if (Objects.isNull(retention.getKeepVersions()) && Objects.isNull(retention.getKeepDays())) {
+            return 0;
+        }
+        var keepVersions = Objects.isNull(retention.getKeepVersions()) ? 1 : Math.max(retention.getKeepVersions(), 1);
+        var before = Objects.isNull(retention.getKeepDays()) ? LocalDateTime.now() : LocalDateTime.now().minusDays(retention.getKeepDays());
+        var ids = secretRepository.findExpiredIds(keepVersions, before, PageRequest.of(0, retention.getBatchSize()));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        var hashes = secretDataRepository.findHashesByIdIn(ids);
+        secretDataRepository.lockByHashIn(hashes);
+        secretRepository.deleteUserSecretsByIdIn(ids);
+        secretRepository.deleteSecretFilesByIdIn(ids);
+        secretRepository.deleteSecretTagsByIdIn(ids);
+        secretRepository.deleteVersionsByIdIn(ids);
+        secretDataRepository.deleteUnreferencedByHashIn(hashes);
+        return ids.size();
+    }
+}
@@ -1,105 +1,381 @@
 package app.yapam.secret;
 
+import app.yapam.change.ChangeService;
+import app.yapam.common.error.InternalErrorException;
+import app.yapam.common.error.InvalidBatchOperationException;
+import app.yapam.common.error.SecretAccessDeniedException;
+import app.yapam.common.error.SecretVersionConflictException;
 import app.yapam.common.error.UnknownSecretException;
-import app.yapam.common.repository.SecretDao;
-import app.yapam.common.repository.SecretRepository;
-import app.yapam.common.repository.UserRepository;
-import app.yapam.common.repository.UserSecretRepository;
+import app.yapam.common.error.YapamException;
+import app.yapam.common.repository.*;
+import app.yapam.common.service.FilterEvaluator;
 import app.yapam.common.service.MappingService;
+import app.yapam.common.service.PaginationService;
+import app.yapam.common.service.PermissionEvaluator;
+import app.yapam.common.service.SecretSearchService;
 import app.yapam.file.FileService;
 import app.yapam.secret.model.Secret;
+import app.yapam.secret.model.SecretBatchOperationTypeEnum;
+import app.yapam.secret.model.SecretTypeEnum;
+import app.yapam.secret.model.request.SecretBatchOperation;
+import app.yapam.secret.model.request.SecretBatchRequest;
 import app.yapam.secret.model.request.SecretRequest;
+import app.yapam.secret.model.request.UserIdSecretPrivilege;
+import app.yapam.secret.model.response.SecretBatchResponse;
+import app.yapam.secret.model.response.SecretBatchResultResponse;
+import app.yapam.secret.model.response.SecretFacetResponse;
 import app.yapam.secret.model.response.SecretResponse;
+import app.yapam.secret.model.response.SecretResponseWrapper;
+import app.yapam.secret.model.response.SecretVersionResponseWrapper;
 import app.yapam.secret.model.response.SimpleSecretResponse;
+import app.yapam.config.YapamProperties;
 import app.yapam.tag.TagService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.access.prepost.PostFilter;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.ResponseStatus;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-import java.util.UUID;
+import javax.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class SecretService {
 
     @Autowired private SecretRepository secretRepository;
+    @Autowired private SecretHeadRepository secretHeadRepository;
+    @Autowired private SecretTombstoneRepository secretTombstoneRepository;
     @Autowired private MappingService mappingService;
-    @Autowired private UserRepository userRepository;
+    @Autowired private FilterEvaluator filterEvaluator;
+    @Autowired private PaginationService paginationService;
+    @Autowired private PermissionEvaluator permissionEvaluator;
+    @Autowired private SecretSearchService secretSearchService;
     @Autowired private UserSecretRepository userSecretRepository;
     @Autowired private FileService fileService;
     @Autowired private TagService tagService;
+    @Autowired private ChangeService changeService;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private YapamProperties yapamProperties;
+
+    @PreAuthorize("@permissionEvaluator.registeredUser()")
+    public SecretBatchResponse batchSecrets(SecretBatchRequest secretBatchRequest) {
+        var operations = secretBatchRequest.getOperations();
+        if (Objects.isNull(operations)) {
+            throw new InvalidBatchOperationException("Operations are missing");
+        }
+        var maxOperations = yapamProperties.getBatch().getMaxOperations();
+        if (operations.size() > maxOperations) {
+            throw new InvalidBatchOperationException(String.format("A batch may contain at most %d operations", maxOperations));
+        }
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        List<SecretBatchResultResponse> results = new ArrayList<>();
+        for (int index = 0; index < operations.size(); index++) {
+            var operation = operations.get(index);
+            var result = new SecretBatchResultResponse();
+            result.setIndex(index);
+            result.setSecretId(operation.getSecretId());
+            try {
+                var secretResponse = transactionTemplate.execute(status -> executeBatchOperation(operation));
+                if (Objects.nonNull(secretResponse)) {
+                    result.setSecretId(secretResponse.getSecretId());
+                    result.setVersion(secretResponse.getVersion());
+                }
+                result.setStatus(getBatchOperationStatus(operation.getType()).value());
+            } catch (YapamException e) {
+                setBatchOperationError(result, e);
+            } catch (RuntimeException e) {
+                log.error(e.getMessage(), e);
+                setBatchOperationError(result, new InternalErrorException("Operation failed unexpectedly"));
+            }
+            results.add(result);
+        }
+        var secretBatchResponse = new SecretBatchResponse();
+        secretBatchResponse.setResults(results);
+        return secretBatchResponse;
+    }
+
+    private void checkBatchOperationAccess(String secretId, PermissionEvaluator.SecretAccessPermission permission) {
+        if (Objects.isNull(secretId)) {
+            throw new InvalidBatchOperationException("Secret id is missing");
+        }
+        if (!Boolean.TRUE.equals(permissionEvaluator.hasAccessToSecret(secretId, permission))) {
+            throw new SecretAccessDeniedException(secretId);
+        }
+    }
+
+    private SecretResponse executeBatchOperation(SecretBatchOperation operation) {
+        if (Objects.isNull(operation.getType())) {
+            throw new InvalidBatchOperationException("Operation type is missing");
+        }
+        switch (operation.getType()) {
+            case CREATE:
+                requireBatchOperationPayload(operation.getSecret());
+                return createSecret(operation.getSecret());
+            case UPDATE:
+                requireBatchOperationPayload(operation.getSecret());
+                checkBatchOperationAccess(operation.getSecretId(), PermissionEvaluator.SecretAccessPermission.WRITE);
+                return updateSecret(operation.getSecretId(), operation.getSecret(), null);
+            case DELETE:
+                checkBatchOperationAccess(operation.getSecretId(), PermissionEvaluator.SecretAccessPermission.READ);
+                deleteSecret(operation.getSecretId());
+                return null;
+            case SHARE:
+                requireBatchOperationPayload(operation.getUsers());
+                checkBatchOperationAccess(operation.getSecretId(), PermissionEvaluator.SecretAccessPermission.WRITE);
+                return shareSecret(operation.getSecretId(), operation.getUsers());
+            default:
+                throw new InvalidBatchOperationException(String.format("Operation type %s is not supported", operation.getType()));
+        }
+    }
+
+    private HttpStatus getBatchOperationStatus(SecretBatchOperationTypeEnum type) {
+        switch (type) {
+            case CREATE:
+                return HttpStatus.CREATED;
+            case DELETE:
+                return HttpStatus.NO_CONTENT;
+            default:
+                return HttpStatus.OK;
+        }
+    }
+
+    private void requireBatchOperationPayload(Object payload) {
+        if (Objects.isNull(payload)) {
+            throw new InvalidBatchOperationException("Operation payload is missing");
+        }
+    }
+
+    private void setBatchOperationError(SecretBatchResultResponse result, YapamException e) {
+        var status = e.getClass().getDeclaredAnnotationsByType(ResponseStatus.class);
+        result.setStatus(status.length > 0 ? status[0].value().value() : HttpStatus.INTERNAL_SERVER_ERROR.value());
+        result.setError(e.getError());
+        result.setMessage(e.getMessage());
+    }
 
     private Secret createSecret(Secret secret) {
         secret.setSecretId(UUID.randomUUID().toString());
         secret.setVersion(1);
         var secretDao = secretRepository.save(mappingService.secretToDao(secret));
+        secretHeadRepository.save(new SecretHeadDao(secretDao));
         userSecretRepository.saveAll(secretDao.getUsers());
         fileService.attachSecretToFiles(secret.getFiles(), secretDao);
         tagService.attachSecretToTags(secret.getTags(), secretDao);
+        changeService.recordSecretCreated(secretDao);
         return secret;
     }
 
     @PreAuthorize("@permissionEvaluator.registeredUser()")
-    SecretResponse createSecret(SecretRequest secretRequest) {
+    @Transactional
+    public SecretResponse createSecret(SecretRequest secretRequest) {
         var secret = mappingService.secretFromRequest(secretRequest);
         return mappingService.secretToResponse(createSecret(secret));
     }
 
     @PreAuthorize("@permissionEvaluator.hasAccessToSecret(#secretId, 'READ')")
-    void deleteSecret(String secretId) {
-        secretRepository.deleteBySecretId(secretId);
+    @Transactional
+    public void deleteSecret(String secretId) {
+        var userIds = userSecretRepository.findHeadUserIdsBySecretId(secretId);
+        secretHeadRepository.deleteById(secretId);
+        secretTombstoneRepository.save(new SecretTombstoneDao(secretId));
+        // changes are recorded last so their timestamp is taken as close to the commit as possible
+        changeService.recordSecretDeleted(secretId, userIds);
     }
 
     @PreAuthorize("@permissionEvaluator.registeredUser()")
-    @PostFilter("@filterEvaluator.filterForKeywords(filterObject, #keywords)")
-    List<SimpleSecretResponse> getAllSecrets(String[] keywords) {
-        var user = userRepository.findOneById(SecurityContextHolder.getContext().getAuthentication().getName());
-        var secretIds = userSecretRepository.findAllByUserId(user.getId()).stream().map(us -> us.getSecret().getSecretId()).distinct().collect(Collectors.toList());
-        List<SecretDao> secrets = new ArrayList<>();
-        for (String secretId : secretIds) {
-            secrets.add(secretRepository.findFirstBySecretIdOrderByVersionDesc(secretId));
+    SecretResponseWrapper getAllSecrets(String[] keywords, Integer limit, String after) {
+        var userId = SecurityContextHolder.getContext().getAuthentication().getName();
+        var keywordList = Arrays.stream(keywords).filter(keyword -> !keyword.isBlank()).collect(Collectors.toList());
+        var pageSize = paginationService.resolveLimit(limit, after);
+        List<String> candidateSecretIds;
+        List<SecretKey> secretKeys;
+        if (!keywordList.isEmpty() && secretSearchService.isReady()) {
+            candidateSecretIds = secretSearchService.search(userId, keywordList, paginationService.decodeCursor(after), pageSize + 1);
+            secretKeys = candidateSecretIds.isEmpty() ? Collections.emptyList() : secretRepository.findLatestKeysByUserIdAndSecretIdIn(userId, candidateSecretIds);
+        } else {
+            secretKeys = secretRepository.findLatestKeysByUserId(userId, keywordList, paginationService.decodeCursor(after), pageSize + 1);
+            candidateSecretIds = secretKeys.stream().map(SecretKey::getSecretId).collect(Collectors.toList());
         }
+        var lastSecretId = candidateSecretIds.size() > pageSize ? candidateSecretIds.get(pageSize - 1) : null;
+        var secretIds = secretKeys.stream()
+                .filter(secretKey -> Objects.isNull(lastSecretId) || secretKey.getSecretId().compareTo(lastSecretId) <= 0)
+                .map(SecretKey::getId)
+                .collect(Collectors.toList());
 
-        return secrets.stream().map(secret -> mappingService.secretDaoToSimpleResponse(secret)).collect(Collectors.toList());
+        List<SimpleSecretResponse> secrets = Collections.emptyList();
+        if (!secretIds.isEmpty()) {
+            secrets = mappingService.simpleSecretsToResponse(secretRepository.findSimpleSecretsByIdIn(secretIds));
+        }
+        var keywordArray = keywordList.toArray(new String[0]);
+        var secretResponseWrapper = new SecretResponseWrapper();
+        secretResponseWrapper.setSecrets(secrets.stream().filter(secret -> filterEvaluator.filterForKeywords(secret, keywordArray)).collect(Collectors.toList()));
+        if (Objects.nonNull(lastSecretId)) {
+            secretResponseWrapper.setNext(paginationService.encodeCursor(lastSecretId));
+        }
+        return secretResponseWrapper;
+    }
+
+    @PreAuthorize("@permissionEvaluator.registeredUser()")
+    String getAllSecretsETag(String[] keywords, Integer limit, String after) {
+        var userId = SecurityContextHolder.getContext().getAuthentication().getName();
+        var listState = secretRepository.findListStateByUserId(userId);
+        var eTagSource = String.join("|", userId, String.valueOf(listState.getCount()), String.valueOf(listState.getVersionSum()),
+                String.valueOf(listState.getLastChange()), String.join(",", keywords), String.valueOf(limit), String.valueOf(after));
+        return DigestUtils.md5DigestAsHex(eTagSource.getBytes(StandardCharsets.UTF_8));
     }
 
     @PreAuthorize("@permissionEvaluator.hasAccessToSecret(#secretId, 'WRITE')")
     SecretResponse getSecretById(String secretId, Integer version) {
-        SecretDao secret;
+        SecretDetailProjection secretDetail;
         if (version == 0) {
-            secret = secretRepository.findFirstBySecretIdOrderByVersionDesc(secretId);
+            secretDetail = secretRepository.findHeadDetailBySecretId(secretId);
         } else {
-            secret = secretRepository.findFirstBySecretIdAndVersion(secretId, version);
+            secretDetail = secretRepository.findDetailBySecretIdAndVersion(secretId, version);
         }
-        if (Objects.isNull(secret)) {
+        if (Objects.isNull(secretDetail)) {
             throw new UnknownSecretException(secretId);
         }
-        return mappingService.secretDaoToResponse(secret);
+        return mappingService.secretDetailToResponse(secretDetail, secretRepository.findUserPrivilegesById(secretDetail.getId()),
+                secretRepository.findFilesById(secretDetail.getId()), secretRepository.findTagNamesById(secretDetail.getId()));
     }
 
     @PreAuthorize("@permissionEvaluator.hasAccessToSecret(#secretId, 'WRITE')")
-    SecretResponse updateSecret(String secretId, SecretRequest secretRequest) {
+    String getSecretETag(String secretId, Integer version) {
+        if (version == 0) {
+            version = secretHeadRepository.findById(secretId).map(SecretHeadDao::getVersion).orElseThrow(() -> new UnknownSecretException(secretId));
+        }
+        return secretId + ":" + version;
+    }
+
+    @PreAuthorize("@permissionEvaluator.registeredUser()")
+    SecretFacetResponse getSecretFacets() {
+        var userId = SecurityContextHolder.getContext().getAuthentication().getName();
+        var secretFacetResponse = new SecretFacetResponse();
+        if (secretSearchService.isReady()) {
+            secretFacetResponse.setTypes(secretSearchService.countTypes(userId));
+            secretFacetResponse.setTags(secretSearchService.countTags(userId));
+            return secretFacetResponse;
+        }
+
+        Map<SecretTypeEnum, Long> types = new EnumMap<>(SecretTypeEnum.class);
+        for (SecretTypeEnum type : SecretTypeEnum.values()) {
+            types.put(type, 0L);
+        }
+        secretRepository.findTypeFacetsByUserId(userId).forEach(typeFacet -> types.put(typeFacet.getType(), typeFacet.getCount()));
+        secretFacetResponse.setTypes(types);
+        secretFacetResponse.setTags(secretRepository.findTagFacetsByUserId(userId).stream()
+                .map(mappingService::secretTagFacetToResponse)
+                .collect(Collectors.toList()));
+        return secretFacetResponse;
+    }
+
+    @PreAuthorize("@permissionEvaluator.hasAccessToSecret(#secretId, 'READ')")
+    SecretVersionResponseWrapper getSecretVersions(String secretId) {
+        var secretVersionResponseWrapper = new SecretVersionResponseWrapper();
+        secretVersionResponseWrapper.setVersions(secretRepository.findVersionsBySecretId(secretId).stream()
+                .map(mappingService::secretVersionToResponse)
+                .collect(Collectors.toList()));
+        return secretVersionResponseWrapper;
+    }
+
+    @PreAuthorize("@permissionEvaluator.registeredUser()")
+    String streamAllSecrets(String[] keywords, Integer limit, String after, Consumer<? super SimpleSecretResponse> consumer) {
+        var remaining = Objects.isNull(limit) || limit < 1 ? Integer.MAX_VALUE : limit;
+        var next = after;
+        do {
+            var page = getAllSecrets(keywords, Math.min(remaining, paginationService.getMaxLimit()), next);
+            page.getSecrets().forEach(consumer);
+            remaining -= page.getSecrets().size();
+            next = page.getNext();
+        } while (Objects.nonNull(next) && remaining > 0);
+        return next;
+    }
+
+    @PreAuthorize("@permissionEvaluator.hasAccessToSecret(#secretId, 'WRITE')")
+    @Transactional
+    public SecretResponse updateSecret(String secretId, SecretRequest secretRequest, String ifMatch) {
+        var expectedVersion = Objects.isNull(ifMatch) ? secretRequest.getVersion() : parseIfMatch(secretId, ifMatch);
         var secret = mappingService.secretFromRequest(secretRequest);
-        return mappingService.secretToResponse(updateSecret(secretId, secret));
+        return mappingService.secretToResponse(updateSecret(secretId, expectedVersion, secret));
     }
 
-    private Secret updateSecret(String secretId, Secret secret) {
-        secret.setSecretId(secretId);
-        var latestSecretVersion = secretRepository.findFirstDistinctVersionBySecretIdOrderByVersionDesc(secretId);
-        if (Objects.isNull(latestSecretVersion)) {
-            throw new UnknownSecretException(secretId);
+    private Integer allocateVersion(String secretId, Integer expectedVersion) {
+        if (Objects.isNull(expectedVersion)) {
+            expectedVersion = secretHeadRepository.findVersionBySecretId(secretId);
+            if (Objects.isNull(expectedVersion)) {
+                throw new UnknownSecretException(secretId);
+            }
+        }
+        if (secretHeadRepository.incrementVersion(secretId, expectedVersion) == 0) {
+            if (!secretHeadRepository.existsById(secretId)) {
+                throw new UnknownSecretException(secretId);
+            }
+            throw new SecretVersionConflictException(secretId, expectedVersion);
+        }
+        return expectedVersion + 1;
+    }
+
+    private Integer parseIfMatch(String secretId, String ifMatch) {
+        var eTag = ifMatch.trim();
+        if (eTag.equals("*")) {
+            return null;
+        }
+        eTag = eTag.replace("\"", "");
+        var separator = eTag.lastIndexOf(':');
+        if (separator >= 0 && !eTag.substring(0, separator).equals(secretId)) {
+            throw new SecretVersionConflictException(secretId);
         }
-        secret.setVersion(latestSecretVersion.getVersion() + 1);
+        try {
+            return Integer.valueOf(eTag.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new SecretVersionConflictException(secretId);
+        }
+    }
+
+    private SecretResponse shareSecret(String secretId, List<UserIdSecretPrivilege> users) {
+        var secretDao = secretHeadRepository.findById(secretId).map(SecretHeadDao::getSecret).orElseThrow(() -> new UnknownSecretException(secretId));
+        Map<String, UserIdSecretPrivilege> privileges = new LinkedHashMap<>();
+        for (UserSecretDao userSecret : secretDao.getUsers()) {
+            privileges.put(userSecret.getUser().getId(), new UserIdSecretPrivilege(userSecret.getUser().getId(), userSecret.getPrivileged()));
+        }
+        for (UserIdSecretPrivilege user : users) {
+            privileges.put(user.getUserId(), user);
+        }
+
+        var secretRequest = new SecretRequest();
+        secretRequest.setTitle(secretDao.getTitle());
+        secretRequest.setData(secretDao.getContent().getData());
+        secretRequest.setType(secretDao.getType());
+        secretRequest.setUsers(new ArrayList<>(privileges.values()));
+        secretRequest.setFiles(secretDao.getFiles().stream().map(FileDao::getId).collect(Collectors.toList()));
+        secretRequest.setTags(secretDao.getTags().stream().map(TagDao::getId).collect(Collectors.toList()));
+        secretRequest.setVersion(secretDao.getVersion());
+        return updateSecret(secretId, secretRequest, null);
+    }
+
+    private Secret updateSecret(String secretId, Integer expectedVersion, Secret secret) {
+        secret.setSecretId(secretId);
         var secretDao = mappingService.secretToDao(secret);
-        secretRepository.save(secretDao);
+        var version = allocateVersion(secretId, expectedVersion);
+        secret.setVersion(version);
+        secretDao.setVersion(version);
+        var previousUserIds = userSecretRepository.findHeadUserIdsBySecretId(secretId);
+        secretDao = secretRepository.save(secretDao);
+        secretHeadRepository.updateHead(secretId, secretDao);
         userSecretRepository.saveAll(secretDao.getUsers());
         fileService.attachSecretToFiles(secret.getFiles(), secretDao);
         tagService.attachSecretToTags(secret.getTags(), secretDao);
+        changeService.recordSecretUpdated(secretDao, previousUserIds);
         return secret;
     }
 }
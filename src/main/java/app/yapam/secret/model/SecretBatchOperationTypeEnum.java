@@ -0,0 +1,8 @@
+package app.yapam.secret.model;
+
+public enum SecretBatchOperationTypeEnum {
+    CREATE,
+    UPDATE,
+    DELETE,
+    SHARE
+}
@@ -0,0 +1,22 @@
+package app.yapam.secret.model.request;
+
+import app.yapam.secret.model.SecretBatchOperationTypeEnum;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class SecretBatchOperation {
+
+    @ApiModelProperty(value = "Type of the operation", dataType = "string", allowableValues = "CREATE, UPDATE, DELETE, SHARE")
+    private SecretBatchOperationTypeEnum type;
+    @ApiModelProperty(value = "Internal id of the secret, required for UPDATE, DELETE and SHARE", example = "4c7e1860-5ae4-4c40-8645-9c5a52d1b007")
+    private String secretId;
+    @ApiModelProperty(value = "Secret to create or update, required for CREATE and UPDATE")
+    private SecretRequest secret;
+    @ApiModelProperty(value = "Users to share the secret with, required for SHARE")
+    private List<UserIdSecretPrivilege> users;
+}
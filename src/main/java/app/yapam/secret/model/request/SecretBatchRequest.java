@@ -0,0 +1,13 @@
+package app.yapam.secret.model.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class SecretBatchRequest {
+
+    private List<SecretBatchOperation> operations;
+}
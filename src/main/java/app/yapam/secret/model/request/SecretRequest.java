@@ -20,4 +20,6 @@ public class SecretRequest {
     private List<UserIdSecretPrivilege> users;
     private List<String> files;
     private List<String> tags;
+    @ApiModelProperty(value = "Version the update is based on, the update is rejected if the secret changed since", example = "1")
+    private Integer version;
 }
@@ -0,0 +1,16 @@
+package app.yapam.secret.model.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class SecretBatchResultResponse {
+
+    private Integer index;
+    private Integer status;
+    private String secretId;
+    private Integer version;
+    private String error;
+    private String message;
+}
@@ -0,0 +1,16 @@
+package app.yapam.secret.model.response;
+
+import app.yapam.secret.model.SecretTypeEnum;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+public class SecretFacetResponse {
+
+    private Map<SecretTypeEnum, Long> types;
+    private List<SecretTagFacetResponse> tags;
+}
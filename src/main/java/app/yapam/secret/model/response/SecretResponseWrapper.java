@@ -10,4 +10,5 @@ import java.util.List;
 public class SecretResponseWrapper {
 
     private List<SimpleSecretResponse> secrets;
+    private String next;
 }
@@ -0,0 +1,13 @@
+package app.yapam.secret.model.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class SecretTagFacetResponse {
+
+    private String id;
+    private String name;
+    private Long count;
+}
@@ -0,0 +1,17 @@
+package app.yapam.secret.model.response;
+
+import app.yapam.user.model.response.SimpleUserResponse;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class SecretVersionResponse {
+
+    private Integer version;
+    private String title;
+    private LocalDateTime creationDate;
+    private SimpleUserResponse createdBy;
+}
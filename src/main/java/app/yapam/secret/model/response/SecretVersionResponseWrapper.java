@@ -0,0 +1,13 @@
+package app.yapam.secret.model.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class SecretVersionResponseWrapper {
+
+    private List<SecretVersionResponse> versions;
+}
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -19,7 +20,8 @@ public class TagController {
     }
 
     @GetMapping(value = "/api/tags")
-    public TagResponseWrapper getTags() {
-        return tagService.getTags();
+    public TagResponseWrapper getTags(@RequestParam(value = "limit", required = false) Integer limit,
+                                      @RequestParam(value = "after", required = false) String after) {
+        return tagService.getTags(limit, after);
     }
 }
@@ -6,11 +6,14 @@ import app.yapam.common.repository.SecretRepository;
 import app.yapam.common.repository.TagDao;
 import app.yapam.common.repository.TagRepository;
 import app.yapam.common.service.MappingService;
+import app.yapam.common.service.PaginationService;
 import app.yapam.tag.model.Tag;
 import app.yapam.tag.model.request.TagRequestWrapper;
 import app.yapam.tag.model.response.TagResponse;
 import app.yapam.tag.model.response.TagResponseWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 
@@ -25,6 +28,7 @@ public class TagService {
     @Autowired private TagRepository tagRepository;
     @Autowired private SecretRepository secretRepository;
     @Autowired private MappingService mappingService;
+    @Autowired private PaginationService paginationService;
 
     public void attachSecretToTags(List<Tag> tagIds, SecretDao secretDao) {
         List<TagDao> tags = new ArrayList<>();
@@ -54,10 +58,16 @@ public class TagService {
     }
 
     @PreAuthorize("@permissionEvaluator.registeredUser()")
-    public TagResponseWrapper getTags() {
-        var tags = tagRepository.findAll().stream().map(dao -> mappingService.tagDaoToResponse(dao)).collect(Collectors.toList());
+    public TagResponseWrapper getTags(Integer limit, String after) {
+        var pageSize = paginationService.resolveLimit(limit, after);
+        var tagProjections = tagRepository.findTagsByNameGreaterThan(paginationService.decodeCursor(after), PageRequest.of(0, pageSize + 1, Sort.by("name")));
+        var page = tagProjections.subList(0, Math.min(tagProjections.size(), pageSize));
+        var tags = page.stream().map(tag -> mappingService.tagToResponse(tag)).collect(Collectors.toList());
         var tagResponseWrapper = new TagResponseWrapper();
         tagResponseWrapper.setTags(tags);
+        if (tagProjections.size() > pageSize) {
+            tagResponseWrapper.setNext(paginationService.encodeCursor(page.get(page.size() - 1).getName()));
+        }
         return tagResponseWrapper;
     }
 }
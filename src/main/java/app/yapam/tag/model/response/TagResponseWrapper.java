@@ -10,4 +10,5 @@ import java.util.List;
 public class TagResponseWrapper {
 
     private List<TagResponse> tags;
+    private String next;
 }
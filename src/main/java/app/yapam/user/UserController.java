@@ -1,5 +1,6 @@
 package app.yapam.user;
 
+import app.yapam.common.service.JsonListWriter;
 import app.yapam.user.model.request.UserRequest;
 import app.yapam.user.model.response.SimpleUserResponse;
 import app.yapam.user.model.response.SimpleUserResponseWrapper;
@@ -11,10 +12,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
 @RestController
 public class UserController {
 
     @Autowired private UserService userService;
+    @Autowired private JsonListWriter jsonListWriter;
 
     @ApiOperation(value = "Create a user")
     @PostMapping(value = "/api/users", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
@@ -25,8 +30,9 @@ public class UserController {
 
     @ApiOperation(value = "Get all users reachable by the user")
     @GetMapping(value = "/api/users", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public SimpleUserResponseWrapper getAllUsers() {
-        return userService.getAllUsers();
+    public SimpleUserResponseWrapper getAllUsers(@RequestParam(value = "limit", required = false) Integer limit,
+                                                 @RequestParam(value = "after", required = false) String after) {
+        return userService.getAllUsers(limit, after);
     }
 
     @ApiOperation(value = "Get the current user")
@@ -43,4 +49,12 @@ public class UserController {
     public SimpleUserResponse getUserById(@PathVariable("userId") String userId) {
         return userService.getSimpleUserById(userId);
     }
+
+    @ApiOperation(value = "Stream all users reachable by the user without loading them into memory at once")
+    @GetMapping(value = "/api/users", params = "stream=true", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public void streamAllUsers(@RequestParam(value = "limit", required = false) Integer limit,
+                               @RequestParam(value = "after", required = false) String after,
+                               HttpServletResponse response) throws IOException {
+        jsonListWriter.write(response, "users", users -> userService.streamAllUsers(limit, after, users));
+    }
 }
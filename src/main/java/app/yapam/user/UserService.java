@@ -5,17 +5,22 @@ import app.yapam.common.error.UserAlreadyExistsException;
 import app.yapam.common.repository.UserRepository;
 import app.yapam.common.service.EmailService;
 import app.yapam.common.service.MappingService;
+import app.yapam.common.service.PaginationService;
 import app.yapam.user.model.request.UserRequest;
 import app.yapam.user.model.response.SimpleUserResponse;
 import app.yapam.user.model.response.SimpleUserResponseWrapper;
 import app.yapam.user.model.response.UserResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,6 +29,7 @@ public class UserService {
     @Autowired private UserRepository userRepository;
     @Autowired private EmailService emailService;
     @Autowired private MappingService mappingService;
+    @Autowired private PaginationService paginationService;
 
     private void checkUserExists() {
         var userDao = userRepository.findOneById(SecurityContextHolder.getContext().getAuthentication().getName());
@@ -45,10 +51,16 @@ public class UserService {
     }
 
     @PreAuthorize("@permissionEvaluator.registeredUser()")
-    public SimpleUserResponseWrapper getAllUsers() {
-        var simpleUserResponse = userRepository.findAll().stream().map(user -> mappingService.userDaoToSimpleResponse(user)).collect(Collectors.toSet());
+    public SimpleUserResponseWrapper getAllUsers(Integer limit, String after) {
+        var pageSize = paginationService.resolveLimit(limit, after);
+        var users = userRepository.findSimpleUsersByIdGreaterThan(paginationService.decodeCursor(after), PageRequest.of(0, pageSize + 1, Sort.by("id")));
+        var page = users.subList(0, Math.min(users.size(), pageSize));
+        var simpleUserResponse = page.stream().map(user -> mappingService.simpleUserToResponse(user)).collect(Collectors.toCollection(LinkedHashSet::new));
         var simpleUserResponseWrapper = new SimpleUserResponseWrapper();
         simpleUserResponseWrapper.setUsers(simpleUserResponse);
+        if (users.size() > pageSize) {
+            simpleUserResponseWrapper.setNext(paginationService.encodeCursor(page.get(page.size() - 1).getId()));
+        }
         return simpleUserResponseWrapper;
     }
 
@@ -60,10 +72,23 @@ public class UserService {
 
     @PreAuthorize("@permissionEvaluator.registeredUser()")
     public SimpleUserResponse getSimpleUserById(String userId) {
-        var userDao = userRepository.findOneById(userId);
-        if (Objects.isNull(userDao)) {
+        var simpleUser = userRepository.findSimpleUserById(userId);
+        if (Objects.isNull(simpleUser)) {
             throw new UnknownUserException(userId);
         }
-        return mappingService.userDaoToSimpleResponse(userDao);
+        return mappingService.simpleUserToResponse(simpleUser);
+    }
+
+    @PreAuthorize("@permissionEvaluator.registeredUser()")
+    public String streamAllUsers(Integer limit, String after, Consumer<? super SimpleUserResponse> consumer) {
+        var remaining = Objects.isNull(limit) || limit < 1 ? Integer.MAX_VALUE : limit;
+        var next = after;
+        do {
+            var page = getAllUsers(Math.min(remaining, paginationService.getMaxLimit()), next);
+            page.getUsers().forEach(consumer);
+            remaining -= page.getUsers().size();
+            next = page.getNext();
+        } while (Objects.nonNull(next) && remaining > 0);
+        return next;
     }
 }
@@ -10,4 +10,5 @@ import java.util.Set;
 public class SimpleUserResponseWrapper {
 
     private Set<SimpleUserResponse> users;
+    private String next;
 }
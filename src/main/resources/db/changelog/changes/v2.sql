@@ -0,0 +1,15 @@
+--liquibase formatted sql
+--changeset kevin.raddatz:v2
+
+create table secret_head
+(
+    secret_id varchar(64) not null primary key,
+    head_id   varchar(64) not null unique,
+    version   int         not null,
+    constraint fk_secret_head_head_id foreign key (head_id) references secret (id)
+);
+
+insert into secret_head (secret_id, head_id, version)
+select s.secret_id, s.id, s.version
+from secret s
+where s.version = (select max(v.version) from secret v where v.secret_id = s.secret_id);
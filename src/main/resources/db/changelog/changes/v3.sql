@@ -0,0 +1,23 @@
+--liquibase formatted sql
+--changeset kevin.raddatz:v3
+
+create table secret_data
+(
+    hash varchar(44) not null primary key,
+    data longtext    not null
+);
+
+insert ignore into secret_data (hash, data)
+select to_base64(unhex(sha2(s.data, 256))), s.data
+from secret s;
+
+alter table secret
+    add column data_hash varchar(44) null after version;
+
+update secret
+set data_hash = to_base64(unhex(sha2(data, 256)));
+
+alter table secret
+    modify data_hash varchar(44) not null,
+    add constraint fk_secret_data_hash foreign key (data_hash) references secret_data (hash),
+    drop column data;
@@ -0,0 +1,14 @@
+--liquibase formatted sql
+--changeset kevin.raddatz:v4
+
+create table secret_change
+(
+    id            bigint      not null auto_increment primary key,
+    user_id       varchar(64) not null,
+    secret_id     varchar(64) not null,
+    version       int         null,
+    type          int         not null,
+    creation_date datetime    not null,
+    constraint fk_secret_change_user_id foreign key (user_id) references user (id),
+    index idx_secret_change_user_id_id (user_id, id)
+);
@@ -0,0 +1,5 @@
+--liquibase formatted sql
+--changeset kevin.raddatz:v5
+
+alter table secret_data
+    modify data longblob not null;
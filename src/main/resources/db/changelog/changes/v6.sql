@@ -0,0 +1,9 @@
+--liquibase formatted sql
+--changeset kevin.raddatz:v6
+
+create table secret_tombstone
+(
+    secret_id     varchar(64) not null primary key,
+    deletion_date datetime    not null,
+    index idx_secret_tombstone_deletion_date (deletion_date)
+);
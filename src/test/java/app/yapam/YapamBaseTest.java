@@ -49,16 +49,22 @@ public abstract class YapamBaseTest {
     protected final String API_HEALTH_URL = "/api/health";
     protected final String API_SECRETS_BASE_URL = "/api/secrets";
     protected final String API_SINGLE_SECRET_URL = API_SECRETS_BASE_URL + "/{secretId}";
+    protected final String API_SECRET_VERSIONS_URL = API_SINGLE_SECRET_URL + "/versions";
+    protected final String API_SECRETS_BATCH_URL = API_SECRETS_BASE_URL + ":batch";
+    protected final String API_SECRET_FACETS_URL = API_SECRETS_BASE_URL + "/facets";
     protected final String API_USERS_BASE_URL = "/api/users";
     protected final String API_USERS_USER_BY_ID = API_USERS_BASE_URL + "/{userId}";
     protected final String API_USERS_CURRENT_USER = API_USERS_BASE_URL + "/currentuser";
     protected final String API_FILES_BASE_URL = "/api/files";
     protected final String API_FILES_FILE_BY_ID = API_FILES_BASE_URL + "/{fileId}";
     protected final String API_TAGS_BASE_URL = "/api/tags";
+    protected final String API_CHANGES_BASE_URL = "/api/changes";
+    protected final String API_EVENTS_BASE_URL = "/api/events";
     protected final String API_AUTH_BASE_URL = "/api/auth";
 
     protected final String DEFAULT_SECRET_TITLE = "secretTitle";
     protected final String DEFAULT_SECRET_DATA = "secretData";
+    protected final String DEFAULT_SECRET_DATA_HASH = "Dwcr1R9W1FphPkWNRAWX3X+uMfB7K3FVvG6C4iYzDD8=";
     protected final String DEFAULT_SECRET_SECRETID = "4c7e1860-5ae4-4c40-8645-9c5a52d1b007";
     protected final String DEFAULT_SECRET_ID = "4c7e1860-5ae4-4c40-8645-9c5a52d1b007";
     protected final LocalDateTime DEFAULT_SECRET_CREATION_DATE = LocalDateTime.now();
@@ -144,7 +150,7 @@ public abstract class YapamBaseTest {
         var secretDBO = new SecretDao();
         var userSecretDao = new UserSecretDao(secretDBO, createDefaultUserDao(), true);
         secretDBO.setTitle(DEFAULT_SECRET_TITLE);
-        secretDBO.setData(DEFAULT_SECRET_DATA);
+        secretDBO.setContent(new SecretDataDao(DEFAULT_SECRET_DATA_HASH, DEFAULT_SECRET_DATA));
         secretDBO.setType(DEFAULT_SECRET_TYPE);
         secretDBO.setUsers(Collections.singletonList(userSecretDao));
         secretDBO.setId(DEFAULT_SECRET_ID);
@@ -153,6 +159,42 @@ public abstract class YapamBaseTest {
         return secretDBO;
     }
 
+    protected SecretDetailProjection createDefaultSecretDetailProjection() {
+        var secretDetail = mock(SecretDetailProjection.class);
+        when(secretDetail.getId()).thenReturn(DEFAULT_SECRET_ID);
+        when(secretDetail.getSecretId()).thenReturn(DEFAULT_SECRET_SECRETID);
+        when(secretDetail.getTitle()).thenReturn(DEFAULT_SECRET_TITLE);
+        when(secretDetail.getData()).thenReturn(DEFAULT_SECRET_DATA);
+        when(secretDetail.getType()).thenReturn(DEFAULT_SECRET_TYPE);
+        when(secretDetail.getVersion()).thenReturn(DEFAULT_SECRET_VERSION);
+        when(secretDetail.getCreationDate()).thenReturn(DEFAULT_SECRET_CREATION_DATE);
+        return secretDetail;
+    }
+
+    protected SecretKey createDefaultSecretKey() {
+        return new SecretKey(DEFAULT_SECRET_SECRETID, DEFAULT_SECRET_ID);
+    }
+
+    protected SecretUserPrivilegeProjection createDefaultSecretUserPrivilegeProjection() {
+        var userPrivilege = mock(SecretUserPrivilegeProjection.class);
+        when(userPrivilege.getId()).thenReturn(DEFAULT_USER_ID);
+        when(userPrivilege.getName()).thenReturn(DEFAULT_USER_NAME);
+        when(userPrivilege.getEmail()).thenReturn(DEFAULT_USER_EMAIL);
+        when(userPrivilege.getPublicKey()).thenReturn(DEFAULT_USER_PUBLIC_KEY);
+        when(userPrivilege.getPrivileged()).thenReturn(true);
+        return userPrivilege;
+    }
+
+    protected SecretVersionProjection createDefaultSecretVersionProjection() {
+        var secretVersion = mock(SecretVersionProjection.class);
+        when(secretVersion.getVersion()).thenReturn(DEFAULT_SECRET_VERSION);
+        when(secretVersion.getTitle()).thenReturn(DEFAULT_SECRET_TITLE);
+        when(secretVersion.getCreationDate()).thenReturn(DEFAULT_SECRET_CREATION_DATE);
+        when(secretVersion.getCreatedById()).thenReturn(DEFAULT_USER_ID);
+        when(secretVersion.getCreatedByName()).thenReturn(DEFAULT_USER_NAME);
+        return secretVersion;
+    }
+
     protected SecretRequest createDefaultSecretRequest() {
         var secretRequest = new SecretRequest();
         var userIdSecretPrivilege = new UserIdSecretPrivilege(DEFAULT_USER_ID, true);
@@ -186,6 +228,23 @@ public abstract class YapamBaseTest {
         return simpleFileResponse;
     }
 
+    protected SimpleFileProjection createDefaultSimpleFileProjection() {
+        var simpleFile = mock(SimpleFileProjection.class);
+        when(simpleFile.getId()).thenReturn(DEFAULT_FILE_ID);
+        when(simpleFile.getFilename()).thenReturn(DEFAULT_FILE_FILENAME);
+        when(simpleFile.getFilesize()).thenReturn(DEFAULT_FILE_FILESIZE);
+        when(simpleFile.getMimetype()).thenReturn(DEFAULT_FILE_MIMETYPE);
+        return simpleFile;
+    }
+
+    protected SimpleSecretProjection createDefaultSimpleSecretProjection() {
+        var simpleSecret = mock(SimpleSecretProjection.class);
+        when(simpleSecret.getSecretId()).thenReturn(DEFAULT_SECRET_SECRETID);
+        when(simpleSecret.getTitle()).thenReturn(DEFAULT_SECRET_TITLE);
+        when(simpleSecret.getTagName()).thenReturn(DEFAULT_TAG_NAME);
+        return simpleSecret;
+    }
+
     protected SimpleSecretResponse createDefaultSimpleSecretResponse() {
         var simpleSecretResponse = new SimpleSecretResponse();
         simpleSecretResponse.setSecretId(DEFAULT_SECRET_SECRETID);
@@ -194,6 +253,15 @@ public abstract class YapamBaseTest {
         return simpleSecretResponse;
     }
 
+    protected SimpleUserProjection createDefaultSimpleUserProjection() {
+        var simpleUser = mock(SimpleUserProjection.class);
+        when(simpleUser.getId()).thenReturn(DEFAULT_USER_ID);
+        when(simpleUser.getName()).thenReturn(DEFAULT_USER_NAME);
+        when(simpleUser.getEmail()).thenReturn(DEFAULT_USER_EMAIL);
+        when(simpleUser.getPublicKey()).thenReturn(DEFAULT_USER_PUBLIC_KEY);
+        return simpleUser;
+    }
+
     protected SimpleUserResponse createDefaultSimpleUserResponse() {
         var simpleUserResponse = new SimpleUserResponse();
         simpleUserResponse.setEmail(DEFAULT_USER_EMAIL);
@@ -218,6 +286,13 @@ public abstract class YapamBaseTest {
         return tagDao;
     }
 
+    protected TagProjection createDefaultTagProjection() {
+        var tag = mock(TagProjection.class);
+        when(tag.getId()).thenReturn(DEFAULT_TAG_ID);
+        when(tag.getName()).thenReturn(DEFAULT_TAG_NAME);
+        return tag;
+    }
+
     protected TagRequestWrapper createDefaultTagRequestWrapper() {
         var tagRequestWrapper = new TagRequestWrapper();
         tagRequestWrapper.setTags(Collections.singletonList(DEFAULT_TAG_NAME));
@@ -0,0 +1,32 @@
+package app.yapam.change;
+
+import app.yapam.YapamBaseTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(ChangeController.class)
+@ActiveProfiles("test")
+class ChangeControllerTest extends YapamBaseTest {
+
+    @Autowired private MockMvc mvc;
+    @MockBean private ChangeService changeService;
+
+    @Test
+    void whenGetChanges_thenReturnSuccessful() throws Exception {
+        mvc.perform(
+                get(API_CHANGES_BASE_URL)
+                        .param("since", "cursor")
+        )
+                .andExpect(status().is2xxSuccessful());
+    }
+}
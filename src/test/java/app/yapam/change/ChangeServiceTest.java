@@ -0,0 +1,172 @@
+package app.yapam.change;
+
+import app.yapam.YapamBaseTest;
+import app.yapam.change.model.ChangeTypeEnum;
+import app.yapam.change.model.response.ChangeResponse;
+import app.yapam.common.error.InvalidCursorException;
+import app.yapam.common.repository.SecretChangeDao;
+import app.yapam.common.repository.SecretChangeRepository;
+import app.yapam.common.service.MappingService;
+import app.yapam.common.service.PaginationService;
+import app.yapam.config.YapamProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(ChangeService.class)
+@ActiveProfiles("test")
+class ChangeServiceTest extends YapamBaseTest {
+
+    private static final LocalDateTime DATABASE_TIME = LocalDateTime.now().minusHours(1);
+
+    @Autowired private ChangeService changeService;
+    @MockBean private SecretChangeRepository secretChangeRepository;
+    @MockBean private MappingService mappingService;
+    @MockBean private PaginationService paginationService;
+    @MockBean private YapamProperties yapamProperties;
+
+    @BeforeEach
+    void beforeEach() {
+        when(yapamProperties.getChanges()).thenReturn(new YapamProperties.ChangeProperties());
+        when(secretChangeRepository.findCurrentTimestamp()).thenReturn(Timestamp.valueOf(DATABASE_TIME));
+    }
+
+    @Test
+    void getChanges() {
+        mockSecurityContextHolder();
+        var change = createSecretChangeDao(7L);
+        when(paginationService.resolveLimit(null)).thenReturn(100);
+        when(paginationService.decodeCursor("cursor")).thenReturn("5");
+        when(paginationService.encodeCursor("7")).thenReturn("next");
+        when(secretChangeRepository.findAllByUserIdAndIdGreaterThan(eq(DEFAULT_USER_ID), eq(5L), any(Pageable.class))).thenReturn(Collections.singletonList(change));
+        when(mappingService.secretChangeDaoToResponse(change)).thenReturn(new ChangeResponse());
+
+        var result = changeService.getChanges("cursor", null);
+
+        assertEquals(1, result.getChanges().size());
+        assertEquals("next", result.getNext());
+        assertFalse(result.getMore());
+    }
+
+    @Test
+    void getChanges_whenMoreChangesThanLimit_thenReportMore() {
+        mockSecurityContextHolder();
+        when(paginationService.resolveLimit(1)).thenReturn(1);
+        when(paginationService.decodeCursor(null)).thenReturn("");
+        when(paginationService.encodeCursor("1")).thenReturn("next");
+        when(secretChangeRepository.findAllByUserIdAndIdGreaterThan(eq(DEFAULT_USER_ID), eq(0L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(createSecretChangeDao(1L), createSecretChangeDao(2L)));
+
+        var result = changeService.getChanges(null, 1);
+
+        assertEquals(1, result.getChanges().size());
+        assertEquals("next", result.getNext());
+        assertTrue(result.getMore());
+    }
+
+    @Test
+    void getChanges_whenChangeInsideLagWindow_thenHoldItBack() {
+        mockSecurityContextHolder();
+        var recentChange = createSecretChangeDao(8L);
+        recentChange.setCreationDate(DATABASE_TIME);
+        when(paginationService.resolveLimit(null)).thenReturn(100);
+        when(paginationService.decodeCursor("cursor")).thenReturn("5");
+        when(paginationService.encodeCursor("7")).thenReturn("next");
+        when(secretChangeRepository.findAllByUserIdAndIdGreaterThan(eq(DEFAULT_USER_ID), eq(5L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(createSecretChangeDao(7L), recentChange, createSecretChangeDao(9L)));
+
+        var result = changeService.getChanges("cursor", null);
+
+        assertEquals(1, result.getChanges().size());
+        assertEquals("next", result.getNext());
+        assertFalse(result.getMore());
+    }
+
+    @Test
+    void getChanges_whenNothingChanged_thenKeepCursor() {
+        mockSecurityContextHolder();
+        when(paginationService.resolveLimit(null)).thenReturn(100);
+        when(paginationService.decodeCursor("cursor")).thenReturn("5");
+
+        var result = changeService.getChanges("cursor", null);
+
+        assertTrue(result.getChanges().isEmpty());
+        assertEquals("cursor", result.getNext());
+    }
+
+    @Test
+    void getChanges_whenCursorInvalid_thenThrowException() {
+        mockSecurityContextHolder();
+        when(paginationService.decodeCursor("cursor")).thenReturn("not-a-number");
+
+        assertThrows(InvalidCursorException.class, () -> changeService.getChanges("cursor", null));
+    }
+
+    @Test
+    void recordSecretUpdated() {
+        var secretDao = createDefaultSecretDao();
+
+        changeService.recordSecretUpdated(secretDao, Arrays.asList(DEFAULT_USER_ID, "OTHER-USER-ID"));
+
+        Map<String, ChangeTypeEnum> changes = captureChanges().stream().collect(Collectors.toMap(SecretChangeDao::getUserId, SecretChangeDao::getType));
+        assertEquals(ChangeTypeEnum.UPDATED, changes.get(DEFAULT_USER_ID));
+        assertEquals(ChangeTypeEnum.UNSHARED, changes.get("OTHER-USER-ID"));
+    }
+
+    @Test
+    void recordSecretUpdated_whenUserAdded_thenRecordShare() {
+        var secretDao = createDefaultSecretDao();
+
+        changeService.recordSecretUpdated(secretDao, Collections.emptyList());
+
+        var changes = captureChanges();
+        assertEquals(1, changes.size());
+        assertEquals(ChangeTypeEnum.SHARED, changes.get(0).getType());
+    }
+
+    @Test
+    void recordSecretDeleted() {
+        changeService.recordSecretDeleted(DEFAULT_SECRET_SECRETID, Collections.singletonList(DEFAULT_USER_ID));
+
+        var changes = captureChanges();
+        assertEquals(ChangeTypeEnum.DELETED, changes.get(0).getType());
+        assertEquals(DEFAULT_SECRET_SECRETID, changes.get(0).getSecretId());
+        assertEquals(DATABASE_TIME, changes.get(0).getCreationDate());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<SecretChangeDao> captureChanges() {
+        ArgumentCaptor<List<SecretChangeDao>> captor = ArgumentCaptor.forClass(List.class);
+        verify(secretChangeRepository).saveAll(captor.capture());
+        return captor.getValue();
+    }
+
+    private SecretChangeDao createSecretChangeDao(Long id) {
+        var secretChangeDao = new SecretChangeDao(DEFAULT_USER_ID, DEFAULT_SECRET_SECRETID, DEFAULT_SECRET_VERSION, ChangeTypeEnum.UPDATED);
+        secretChangeDao.setId(id);
+        secretChangeDao.setCreationDate(DATABASE_TIME.minusMinutes(1));
+        return secretChangeDao;
+    }
+}
@@ -0,0 +1,81 @@
+package app.yapam.common.repository;
+
+import app.yapam.YapamBaseTest;
+import app.yapam.config.YapamProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(SecretDataConverter.class)
+@ActiveProfiles("test")
+class SecretDataConverterTest extends YapamBaseTest {
+
+    private static final String LARGE_SECRET_DATA = "-----BEGIN CERTIFICATE-----\n".repeat(100);
+
+    @Autowired private SecretDataConverter secretDataConverter;
+    @MockBean private YapamProperties yapamProperties;
+
+    private YapamProperties.CompressionProperties compressionProperties;
+
+    @BeforeEach
+    void beforeEach() {
+        compressionProperties = new YapamProperties.CompressionProperties();
+        compressionProperties.setEnabled(true);
+        when(yapamProperties.getCompression()).thenReturn(compressionProperties);
+    }
+
+    @Test
+    void whenDataLarge_thenCompress() {
+        var result = secretDataConverter.convertToDatabaseColumn(LARGE_SECRET_DATA);
+
+        assertTrue(secretDataConverter.isCompressed(result));
+        assertTrue(result.length < LARGE_SECRET_DATA.length());
+        assertEquals(LARGE_SECRET_DATA, secretDataConverter.convertToEntityAttribute(result));
+    }
+
+    @Test
+    void whenDataSmall_thenStoreRaw() {
+        var result = secretDataConverter.convertToDatabaseColumn(DEFAULT_SECRET_DATA);
+
+        assertArrayEquals(DEFAULT_SECRET_DATA.getBytes(StandardCharsets.UTF_8), result);
+        assertEquals(DEFAULT_SECRET_DATA, secretDataConverter.convertToEntityAttribute(result));
+    }
+
+    @Test
+    void whenCompressionDisabled_thenStoreRaw() {
+        compressionProperties.setEnabled(false);
+
+        var result = secretDataConverter.convertToDatabaseColumn(LARGE_SECRET_DATA);
+
+        assertFalse(secretDataConverter.isCompressed(result));
+        assertEquals(LARGE_SECRET_DATA, secretDataConverter.convertToEntityAttribute(result));
+    }
+
+    @Test
+    void whenDataStartsWithHeaderByte_thenKeepItReadable() {
+        var data = "\u0001" + DEFAULT_SECRET_DATA;
+
+        var result = secretDataConverter.convertToDatabaseColumn(data);
+
+        assertFalse(secretDataConverter.isCompressed(result));
+        assertEquals(data, secretDataConverter.convertToEntityAttribute(result));
+    }
+
+    @Test
+    void whenRowWrittenBeforeCompression_thenReadAsIs() {
+        var result = secretDataConverter.convertToEntityAttribute(DEFAULT_SECRET_DATA.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(DEFAULT_SECRET_DATA, result);
+    }
+}
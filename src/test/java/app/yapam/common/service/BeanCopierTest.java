@@ -0,0 +1,185 @@
+package app.yapam.common.service;
+
+import app.yapam.YapamBaseTest;
+import app.yapam.common.repository.SecretDao;
+import app.yapam.secret.model.Secret;
+import app.yapam.secret.model.SecretTypeEnum;
+import lombok.Getter;
+import lombok.Setter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeanUtils;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BeanCopierTest extends YapamBaseTest {
+
+    @Test
+    void whenPropertyIgnored_thenKeepTargetValue() {
+        var secret = createDefaultSecret();
+        var expected = new SecretDao();
+        expected.setId(DEFAULT_SECRET_ID);
+        var result = new SecretDao();
+        result.setId(DEFAULT_SECRET_ID);
+
+        BeanUtils.copyProperties(secret, expected, "id");
+        BeanCopier.create(Secret.class, SecretDao.class, "id").copy(secret, result);
+
+        assertEquals(DEFAULT_SECRET_ID, result.getId());
+        assertSecretDaoEquals(expected, result);
+    }
+
+    @Test
+    void whenIdNotIgnored_thenCopyIt() {
+        var source = createSource();
+        var expected = new Target();
+        var result = new Target();
+
+        BeanUtils.copyProperties(source, expected);
+        BeanCopier.create(Source.class, Target.class).copy(source, result);
+
+        assertEquals("source-id", result.getId());
+        assertEquals(expected.getId(), result.getId());
+    }
+
+    @Test
+    void whenTypesMismatch_thenSkipProperty() {
+        var source = createSource();
+        var expected = new Target();
+        var result = new Target();
+
+        BeanUtils.copyProperties(source, expected, "id");
+        BeanCopier.create(Source.class, Target.class, "id").copy(source, result);
+
+        assertNull(result.getCode());
+        assertEquals(expected.getCode(), result.getCode());
+        assertNull(result.getId());
+    }
+
+    @Test
+    void whenBoxedAndPrimitiveProperties_thenConvertLikeBeanUtils() {
+        var source = createSource();
+        var expected = new Target();
+        var result = new Target();
+
+        BeanUtils.copyProperties(source, expected);
+        BeanCopier.create(Source.class, Target.class).copy(source, result);
+
+        assertEquals(Integer.valueOf(3), result.getCount());
+        assertEquals(7L, result.getSize());
+        assertEquals(expected.getCount(), result.getCount());
+        assertEquals(expected.getSize(), result.getSize());
+    }
+
+    @Test
+    void whenGetterInherited_thenCopyIt() {
+        var source = createSource();
+        var expected = new Target();
+        var result = new Target();
+
+        BeanUtils.copyProperties(source, expected);
+        BeanCopier.create(Source.class, Target.class).copy(source, result);
+
+        assertEquals(DEFAULT_SECRET_CREATION_DATE, result.getCreationDate());
+        assertEquals(expected.getCreationDate(), result.getCreationDate());
+    }
+
+    @Test
+    void whenSourceIsProxy_thenReadThroughGetters() {
+        var target = createDefaultSecretDao();
+        target.setSecretId(DEFAULT_SECRET_SECRETID);
+        target.setVersion(DEFAULT_SECRET_VERSION);
+        var proxy = new SecretDaoProxy(target);
+        var expected = new Secret();
+        var result = new Secret();
+
+        BeanUtils.copyProperties(proxy, expected);
+        BeanCopier.create(SecretDao.class, Secret.class).copy(proxy, result);
+
+        assertEquals(DEFAULT_SECRET_TITLE, result.getTitle());
+        assertEquals(DEFAULT_SECRET_SECRETID, result.getSecretId());
+        assertEquals(DEFAULT_SECRET_VERSION, result.getVersion());
+        assertEquals(DEFAULT_SECRET_TYPE, result.getType());
+        assertEquals(expected.getTitle(), result.getTitle());
+        assertEquals(expected.getSecretId(), result.getSecretId());
+        assertEquals(expected.getVersion(), result.getVersion());
+        assertEquals(expected.getType(), result.getType());
+    }
+
+    private void assertSecretDaoEquals(SecretDao expected, SecretDao result) {
+        assertEquals(expected.getTitle(), result.getTitle());
+        assertEquals(expected.getSecretId(), result.getSecretId());
+        assertEquals(expected.getVersion(), result.getVersion());
+        assertEquals(expected.getType(), result.getType());
+        assertSame(expected.getUsers(), result.getUsers());
+        assertSame(expected.getFiles(), result.getFiles());
+        assertSame(expected.getTags(), result.getTags());
+        assertSame(expected.getContent(), result.getContent());
+    }
+
+    private Source createSource() {
+        var source = new Source();
+        source.setId("source-id");
+        source.setCode("code");
+        source.setCount(3);
+        source.setSize(7L);
+        source.setCreationDate(DEFAULT_SECRET_CREATION_DATE);
+        return source;
+    }
+
+    @Getter
+    @Setter
+    abstract static class AuditableSource {
+        private LocalDateTime creationDate;
+    }
+
+    @Getter
+    @Setter
+    static class Source extends AuditableSource {
+        private String id;
+        private String code;
+        private int count;
+        private Long size;
+    }
+
+    @Getter
+    @Setter
+    static class Target {
+        private String id;
+        private Integer code;
+        private Integer count;
+        private long size;
+        private LocalDateTime creationDate;
+    }
+
+    // mimics a lazy Hibernate proxy: its own fields stay empty and every getter delegates to the loaded entity
+    static class SecretDaoProxy extends SecretDao {
+
+        private final SecretDao target;
+
+        SecretDaoProxy(SecretDao target) {
+            this.target = target;
+        }
+
+        @Override
+        public String getTitle() {
+            return target.getTitle();
+        }
+
+        @Override
+        public String getSecretId() {
+            return target.getSecretId();
+        }
+
+        @Override
+        public Integer getVersion() {
+            return target.getVersion();
+        }
+
+        @Override
+        public SecretTypeEnum getType() {
+            return target.getType();
+        }
+    }
+}
@@ -45,6 +45,15 @@ class FilterEvaluatorTest extends YapamBaseTest  {
         assertTrue(result);
     }
 
+    @Test
+    void whenKeywordCaseDiffers_thenReturnTrue() {
+        var simpleSecretResponse = createDefaultSimpleSecretResponse();
+
+        var result = filterEvaluator.filterForKeywords(simpleSecretResponse, new String[]{DEFAULT_SECRET_TITLE.toUpperCase()});
+
+        assertTrue(result);
+    }
+
     @Test
     void whenKeywordNotInTagsAndTitle_thenReturnFalse() {
         var simpleSecretResponse = createDefaultSimpleSecretResponse();
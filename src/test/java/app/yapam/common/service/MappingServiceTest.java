@@ -1,10 +1,15 @@
 package app.yapam.common.service;
 
 import app.yapam.YapamBaseTest;
-import app.yapam.common.error.UnknownFileException;
-import app.yapam.common.error.UnknownTagException;
-import app.yapam.common.error.UnknownUserException;
+import app.yapam.change.model.ChangeTypeEnum;
+import app.yapam.common.error.UnknownReferenceException;
 import app.yapam.common.repository.FileRepository;
+import app.yapam.common.repository.SecretChangeDao;
+import app.yapam.common.repository.SecretDataConverter;
+import app.yapam.common.repository.SecretDataDao;
+import app.yapam.common.repository.SecretDataRepository;
+import app.yapam.common.repository.SecretTagFacetProjection;
+import app.yapam.common.repository.SimpleSecretProjection;
 import app.yapam.common.repository.TagRepository;
 import app.yapam.common.repository.UserRepository;
 import org.junit.jupiter.api.Test;
@@ -16,9 +21,14 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(SpringExtension.class)
@@ -30,6 +40,8 @@ class MappingServiceTest extends YapamBaseTest {
     @MockBean private UserRepository userRepository;
     @MockBean private FileRepository fileRepository;
     @MockBean private TagRepository tagRepository;
+    @MockBean private SecretDataRepository secretDataRepository;
+    @MockBean private SecretDataConverter secretDataConverter;
 
     @Test
     void fileDaoToSimpleResponse() {
@@ -67,6 +79,7 @@ class MappingServiceTest extends YapamBaseTest {
         assertNull(result.getId());
         assertEquals(DEFAULT_FILE_FILENAME, result.getFilename());
         assertEquals(DEFAULT_FILE_HASH, result.getHash());
+        assertSame(fileRequest, result.getContent());
     }
 
     @Test
@@ -95,40 +108,42 @@ class MappingServiceTest extends YapamBaseTest {
     }
 
     @Test
-    void secretDaoToResponse() {
-        var secretDao = createDefaultSecretDao();
-        secretDao.setFiles(Collections.singletonList(createDefaultFileDao()));
-        secretDao.setTags(Collections.singletonList(createDefaultTagDao()));
+    void secretChangeDaoToResponse() {
+        var secretChangeDao = new SecretChangeDao(DEFAULT_USER_ID, DEFAULT_SECRET_SECRETID, DEFAULT_SECRET_VERSION, ChangeTypeEnum.UPDATED);
 
-        var result = mappingService.secretDaoToResponse(secretDao);
+        var result = mappingService.secretChangeDaoToResponse(secretChangeDao);
 
-        assertTrue(result.getUsers().get(0).getPrivileged());
-        assertEquals(DEFAULT_USER_NAME, result.getUsers().get(0).getUser().getName());
-        assertEquals(DEFAULT_USER_EMAIL, result.getUsers().get(0).getUser().getEmail());
-        assertEquals(DEFAULT_USER_ID, result.getUsers().get(0).getUser().getId());
-        assertEquals(DEFAULT_USER_PUBLIC_KEY, result.getUsers().get(0).getUser().getPublicKey());
-        assertEquals(DEFAULT_FILE_FILESIZE, result.getFiles().get(0).getFilesize());
-        assertEquals(DEFAULT_FILE_FILENAME, result.getFiles().get(0).getFilename());
-        assertEquals(DEFAULT_FILE_ID, result.getFiles().get(0).getId());
-        assertEquals(DEFAULT_FILE_MIMETYPE, result.getFiles().get(0).getMimetype());
-        assertEquals(DEFAULT_TAG_NAME, result.getTags().get(0));
-        assertEquals(DEFAULT_SECRET_DATA, result.getData());
-        assertEquals(DEFAULT_SECRET_VERSION, result.getVersion());
         assertEquals(DEFAULT_SECRET_SECRETID, result.getSecretId());
-        assertEquals(DEFAULT_SECRET_TITLE, result.getTitle());
-        assertEquals(DEFAULT_SECRET_TYPE, result.getType());
+        assertEquals(DEFAULT_SECRET_VERSION, result.getVersion());
+        assertEquals(ChangeTypeEnum.UPDATED, result.getType());
+        assertNotNull(result.getCreationDate());
     }
 
     @Test
-    void secretDaoToSimpleResponse() {
-        var secretDao = createDefaultSecretDao();
-        secretDao.setFiles(Collections.singletonList(createDefaultFileDao()));
-        secretDao.setTags(Collections.singletonList(createDefaultTagDao()));
+    void secretDetailToResponse() {
+        var secretDetail = createDefaultSecretDetailProjection();
+        var userPrivilege = createDefaultSecretUserPrivilegeProjection();
+        var simpleFile = createDefaultSimpleFileProjection();
 
-        var result = mappingService.secretDaoToSimpleResponse(secretDao);
+        var result = mappingService.secretDetailToResponse(secretDetail, Collections.singletonList(userPrivilege),
+                Collections.singletonList(simpleFile), Collections.singletonList(DEFAULT_TAG_NAME));
 
-        assertEquals(DEFAULT_SECRET_TITLE, result.getTitle());
         assertEquals(DEFAULT_SECRET_SECRETID, result.getSecretId());
+        assertEquals(DEFAULT_SECRET_TITLE, result.getTitle());
+        assertEquals(DEFAULT_SECRET_DATA, result.getData());
+        assertEquals(DEFAULT_SECRET_TYPE, result.getType());
+        assertEquals(DEFAULT_SECRET_VERSION, result.getVersion());
+        assertEquals(DEFAULT_SECRET_CREATION_DATE, result.getCreationDate());
+        assertEquals(DEFAULT_USER_ID, result.getUsers().get(0).getUser().getId());
+        assertEquals(DEFAULT_USER_NAME, result.getUsers().get(0).getUser().getName());
+        assertEquals(DEFAULT_USER_EMAIL, result.getUsers().get(0).getUser().getEmail());
+        assertEquals(DEFAULT_USER_PUBLIC_KEY, result.getUsers().get(0).getUser().getPublicKey());
+        assertTrue(result.getUsers().get(0).getPrivileged());
+        assertEquals(DEFAULT_FILE_ID, result.getFiles().get(0).getId());
+        assertEquals(DEFAULT_FILE_FILENAME, result.getFiles().get(0).getFilename());
+        assertEquals(DEFAULT_FILE_FILESIZE, result.getFiles().get(0).getFilesize());
+        assertEquals(DEFAULT_FILE_MIMETYPE, result.getFiles().get(0).getMimetype());
+        assertEquals(DEFAULT_TAG_NAME, result.getTags().get(0));
     }
 
     @Test
@@ -164,9 +179,9 @@ class MappingServiceTest extends YapamBaseTest {
     void secretFromRequest() {
         var secretRequest = createDefaultSecretRequest();
         secretRequest.setTags(Collections.singletonList(DEFAULT_TAG_ID));
-        when(userRepository.findOneById(DEFAULT_USER_ID)).thenReturn(createDefaultUserDao());
-        when(fileRepository.findOneById(DEFAULT_FILE_ID)).thenReturn(createDefaultFileDao());
-        when(tagRepository.findOneById(DEFAULT_TAG_ID)).thenReturn(createDefaultTagDao());
+        when(userRepository.findAllById(Set.of(DEFAULT_USER_ID))).thenReturn(Collections.singletonList(createDefaultUserDao()));
+        when(fileRepository.findAllById(Set.of(DEFAULT_FILE_ID))).thenReturn(Collections.singletonList(createDefaultFileDao()));
+        when(tagRepository.findAllById(Set.of(DEFAULT_TAG_ID))).thenReturn(Collections.singletonList(createDefaultTagDao()));
 
         var result = mappingService.secretFromRequest(secretRequest);
 
@@ -193,26 +208,44 @@ class MappingServiceTest extends YapamBaseTest {
     void secretFromRequest_whenTagNotFound_thenThrowException() {
         var secretRequest = createDefaultSecretRequest();
         secretRequest.setTags(Collections.singletonList("UNKNOWN_TAG_ID"));
-        when(userRepository.findOneById(DEFAULT_USER_ID)).thenReturn(createDefaultUserDao());
-        when(fileRepository.findOneById(DEFAULT_FILE_ID)).thenReturn(createDefaultFileDao());
-        when(tagRepository.findOneById("UNKNOWN_TAG_ID")).thenReturn(null);
+        when(userRepository.findAllById(Set.of(DEFAULT_USER_ID))).thenReturn(Collections.singletonList(createDefaultUserDao()));
+        when(fileRepository.findAllById(Set.of(DEFAULT_FILE_ID))).thenReturn(Collections.singletonList(createDefaultFileDao()));
 
-        assertThrows(UnknownTagException.class, () -> mappingService.secretFromRequest(secretRequest));
+        var exception = assertThrows(UnknownReferenceException.class, () -> mappingService.secretFromRequest(secretRequest));
+
+        assertEquals("Unknown tags UNKNOWN_TAG_ID", exception.getMessage());
     }
 
     @Test
     void secretFromRequest_whenFileNotFound_thenThrowException() {
         var secretRequest = createDefaultSecretRequest();
-        when(userRepository.findOneById(DEFAULT_USER_ID)).thenReturn(createDefaultUserDao());
+        secretRequest.setTags(Collections.emptyList());
+        when(userRepository.findAllById(Set.of(DEFAULT_USER_ID))).thenReturn(Collections.singletonList(createDefaultUserDao()));
+
+        var exception = assertThrows(UnknownReferenceException.class, () -> mappingService.secretFromRequest(secretRequest));
 
-        assertThrows(UnknownFileException.class, () -> mappingService.secretFromRequest(secretRequest));
+        assertEquals("Unknown files " + DEFAULT_FILE_ID, exception.getMessage());
     }
 
     @Test
     void secretFromRequest_whenUserNotFound_thenThrowException() {
         var secretRequest = createDefaultSecretRequest();
+        secretRequest.setTags(Collections.emptyList());
+        when(fileRepository.findAllById(Set.of(DEFAULT_FILE_ID))).thenReturn(Collections.singletonList(createDefaultFileDao()));
 
-        assertThrows(UnknownUserException.class, () -> mappingService.secretFromRequest(secretRequest));
+        var exception = assertThrows(UnknownReferenceException.class, () -> mappingService.secretFromRequest(secretRequest));
+
+        assertEquals("Unknown users " + DEFAULT_USER_ID, exception.getMessage());
+    }
+
+    @Test
+    void secretFromRequest_whenReferencesNotFound_thenReportAllMissingIds() {
+        var secretRequest = createDefaultSecretRequest();
+        secretRequest.setTags(Collections.singletonList("UNKNOWN_TAG_ID"));
+
+        var exception = assertThrows(UnknownReferenceException.class, () -> mappingService.secretFromRequest(secretRequest));
+
+        assertEquals("Unknown users " + DEFAULT_USER_ID + "; files " + DEFAULT_FILE_ID + "; tags UNKNOWN_TAG_ID", exception.getMessage());
     }
 
     @Test
@@ -220,10 +253,12 @@ class MappingServiceTest extends YapamBaseTest {
         var secret = createDefaultSecret();
         secret.setFiles(Collections.singletonList(createDefaultFile()));
         secret.setTags(Collections.singletonList(createDefaultTag()));
+        when(secretDataRepository.getOne(DEFAULT_SECRET_DATA_HASH)).thenReturn(new SecretDataDao(DEFAULT_SECRET_DATA_HASH, DEFAULT_SECRET_DATA));
 
         var result = mappingService.secretToDao(secret);
 
-        assertEquals(DEFAULT_SECRET_DATA, result.getData());
+        assertEquals(DEFAULT_SECRET_DATA, result.getContent().getData());
+        assertEquals(DEFAULT_SECRET_DATA_HASH, result.getContent().getHash());
         assertEquals(DEFAULT_SECRET_VERSION, result.getVersion());
         assertEquals(DEFAULT_SECRET_SECRETID, result.getSecretId());
         assertEquals(DEFAULT_SECRET_TITLE, result.getTitle());
@@ -243,6 +278,47 @@ class MappingServiceTest extends YapamBaseTest {
         assertTrue(result.getUsers().get(0).getPrivileged());
     }
 
+    @Test
+    void secretToDao_whenDataAlreadyStored_thenReuseContent() {
+        var secret = createDefaultSecret();
+        var secretDataDao = new SecretDataDao(DEFAULT_SECRET_DATA_HASH, DEFAULT_SECRET_DATA);
+        var column = DEFAULT_SECRET_DATA.getBytes(StandardCharsets.UTF_8);
+        when(secretDataConverter.convertToDatabaseColumn(DEFAULT_SECRET_DATA)).thenReturn(column);
+        when(secretDataRepository.getOne(DEFAULT_SECRET_DATA_HASH)).thenReturn(secretDataDao);
+
+        var result = mappingService.secretToDao(secret);
+
+        assertSame(secretDataDao, result.getContent());
+        verify(secretDataRepository).insertIgnore(DEFAULT_SECRET_DATA_HASH, column);
+    }
+
+    @Test
+    void secretTagFacetToResponse() {
+        var secretTagFacet = mock(SecretTagFacetProjection.class);
+        when(secretTagFacet.getTagId()).thenReturn(DEFAULT_TAG_ID);
+        when(secretTagFacet.getName()).thenReturn(DEFAULT_TAG_NAME);
+        when(secretTagFacet.getCount()).thenReturn(2L);
+
+        var result = mappingService.secretTagFacetToResponse(secretTagFacet);
+
+        assertEquals(DEFAULT_TAG_ID, result.getId());
+        assertEquals(DEFAULT_TAG_NAME, result.getName());
+        assertEquals(Long.valueOf(2L), result.getCount());
+    }
+
+    @Test
+    void secretVersionToResponse() {
+        var secretVersion = createDefaultSecretVersionProjection();
+
+        var result = mappingService.secretVersionToResponse(secretVersion);
+
+        assertEquals(DEFAULT_SECRET_VERSION, result.getVersion());
+        assertEquals(DEFAULT_SECRET_TITLE, result.getTitle());
+        assertEquals(DEFAULT_SECRET_CREATION_DATE, result.getCreationDate());
+        assertEquals(DEFAULT_USER_ID, result.getCreatedBy().getId());
+        assertEquals(DEFAULT_USER_NAME, result.getCreatedBy().getName());
+    }
+
     @Test
     void secretToResponse() {
         var secret = createDefaultSecret();
@@ -281,6 +357,49 @@ class MappingServiceTest extends YapamBaseTest {
         assertEquals(DEFAULT_TAG_NAME, result.getTags().get(0));
     }
 
+    @Test
+    void simpleFileToResponse() {
+        var simpleFile = createDefaultSimpleFileProjection();
+
+        var result = mappingService.simpleFileToResponse(simpleFile);
+
+        assertEquals(DEFAULT_FILE_ID, result.getId());
+        assertEquals(DEFAULT_FILE_FILENAME, result.getFilename());
+        assertEquals(DEFAULT_FILE_FILESIZE, result.getFilesize());
+        assertEquals(DEFAULT_FILE_MIMETYPE, result.getMimetype());
+    }
+
+    @Test
+    void simpleSecretsToResponse() {
+        var simpleSecret = createDefaultSimpleSecretProjection();
+        var otherTag = createDefaultSimpleSecretProjection();
+        when(otherTag.getTagName()).thenReturn("othertag");
+        var untagged = mock(SimpleSecretProjection.class);
+        when(untagged.getSecretId()).thenReturn("OTHER-SECRET-ID");
+        when(untagged.getTitle()).thenReturn("other");
+
+        var result = mappingService.simpleSecretsToResponse(Arrays.asList(simpleSecret, otherTag, untagged));
+
+        assertEquals(2, result.size());
+        assertEquals(DEFAULT_SECRET_SECRETID, result.get(0).getSecretId());
+        assertEquals(DEFAULT_SECRET_TITLE, result.get(0).getTitle());
+        assertEquals(Arrays.asList(DEFAULT_TAG_NAME, "othertag"), result.get(0).getTags());
+        assertEquals("OTHER-SECRET-ID", result.get(1).getSecretId());
+        assertTrue(result.get(1).getTags().isEmpty());
+    }
+
+    @Test
+    void simpleUserToResponse() {
+        var simpleUser = createDefaultSimpleUserProjection();
+
+        var result = mappingService.simpleUserToResponse(simpleUser);
+
+        assertEquals(DEFAULT_USER_ID, result.getId());
+        assertEquals(DEFAULT_USER_NAME, result.getName());
+        assertEquals(DEFAULT_USER_EMAIL, result.getEmail());
+        assertEquals(DEFAULT_USER_PUBLIC_KEY, result.getPublicKey());
+    }
+
     @Test
     void tagDaoToResponse() {
         var tagDao = createDefaultTagDao();
@@ -311,6 +430,16 @@ class MappingServiceTest extends YapamBaseTest {
         assertEquals(DEFAULT_TAG_NAME, result.getName());
     }
 
+    @Test
+    void tagToResponse() {
+        var tag = createDefaultTagProjection();
+
+        var result = mappingService.tagToResponse(tag);
+
+        assertEquals(DEFAULT_TAG_ID, result.getId());
+        assertEquals(DEFAULT_TAG_NAME, result.getName());
+    }
+
     @Test
     void userDBOToResponse() {
         var userDBO = createDefaultUserDao();
@@ -325,20 +454,6 @@ class MappingServiceTest extends YapamBaseTest {
         assertEquals(DEFAULT_USER_CREATION_DATE, result.getCreationDate());
     }
 
-    @Test
-    void userDBOToSimpleResponse() {
-        var userDBO = createDefaultUserDao();
-
-        var result = mappingService.userDaoToSimpleResponse(userDBO);
-
-        assertEquals(DEFAULT_USER_ID, result.getId());
-        assertEquals(DEFAULT_USER_EMAIL, result.getEmail());
-        assertEquals(DEFAULT_USER_PUBLIC_KEY, result.getPublicKey());
-        assertEquals(DEFAULT_USER_NAME, result.getName());
-
-        assertNotNull(result);
-    }
-
     @Test
     void userFromDBO() {
         var userDBO = createDefaultUserDao();
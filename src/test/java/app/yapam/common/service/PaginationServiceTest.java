@@ -0,0 +1,78 @@
+package app.yapam.common.service;
+
+import app.yapam.YapamBaseTest;
+import app.yapam.common.error.InvalidCursorException;
+import app.yapam.config.YapamProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(PaginationService.class)
+@ActiveProfiles("test")
+class PaginationServiceTest extends YapamBaseTest {
+
+    @Autowired private PaginationService paginationService;
+    @MockBean private YapamProperties yapamProperties;
+
+    @BeforeEach
+    void beforeEach() {
+        var paginationProperties = new YapamProperties.PaginationProperties();
+        paginationProperties.setDefaultLimit(100);
+        paginationProperties.setMaxLimit(1000);
+        when(yapamProperties.getPagination()).thenReturn(paginationProperties);
+    }
+
+    @Test
+    void whenCursorEncoded_thenDecodeToKey() {
+        var cursor = paginationService.encodeCursor(DEFAULT_SECRET_SECRETID);
+
+        var result = paginationService.decodeCursor(cursor);
+
+        assertNotEquals(DEFAULT_SECRET_SECRETID, cursor);
+        assertEquals(DEFAULT_SECRET_SECRETID, result);
+    }
+
+    @Test
+    void whenNoCursor_thenDecodeToEmptyKey() {
+        assertEquals("", paginationService.decodeCursor(null));
+    }
+
+    @Test
+    void whenInvalidCursor_thenThrowException() {
+        assertThrows(InvalidCursorException.class, () -> paginationService.decodeCursor("%%%"));
+    }
+
+    @Test
+    void whenNoLimit_thenReturnDefaultLimit() {
+        assertEquals(100, paginationService.resolveLimit(null));
+    }
+
+    @Test
+    void whenNoLimitAndNoCursor_thenReturnUnpaged() {
+        assertEquals(PaginationService.UNPAGED, paginationService.resolveLimit(null, null));
+    }
+
+    @Test
+    void whenCursorWithoutLimit_thenReturnDefaultLimit() {
+        assertEquals(100, paginationService.resolveLimit(null, "cursor"));
+    }
+
+    @Test
+    void whenLimitExceedsMaximum_thenReturnMaxLimit() {
+        assertEquals(1000, paginationService.resolveLimit(5000));
+    }
+
+    @Test
+    void whenLimitWithinBounds_thenReturnLimit() {
+        assertEquals(10, paginationService.resolveLimit(10));
+    }
+}
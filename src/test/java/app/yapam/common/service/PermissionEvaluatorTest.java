@@ -1,22 +1,36 @@
 package app.yapam.common.service;
 
 import app.yapam.YapamBaseTest;
-import app.yapam.common.repository.FileRepository;
-import app.yapam.common.repository.SecretRepository;
+import app.yapam.change.ChangeService;
+import app.yapam.change.model.ChangeTypeEnum;
+import app.yapam.change.model.SecretChangeEvent;
+import app.yapam.common.repository.SecretChangeDao;
+import app.yapam.common.repository.SecretChangeRepository;
 import app.yapam.common.repository.UserRepository;
+import app.yapam.common.repository.UserSecretRepository;
+import app.yapam.config.YapamProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(PermissionEvaluator.class)
@@ -24,9 +38,30 @@ import static org.mockito.Mockito.when;
 class PermissionEvaluatorTest extends YapamBaseTest {
 
     @Autowired private PermissionEvaluator permissionEvaluator;
-    @MockBean private SecretRepository secretRepository;
+    @MockBean private UserSecretRepository userSecretRepository;
     @MockBean private UserRepository userRepository;
-    @MockBean private FileRepository fileRepository;
+    @MockBean private SecretChangeRepository secretChangeRepository;
+    @MockBean private ChangeService changeService;
+
+    @TestConfiguration
+    static class PermissionEvaluatorTestConfiguration {
+
+        @Bean
+        YapamProperties yapamProperties() {
+            return new YapamProperties();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        when(changeService.getSettledChanges(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        permissionEvaluator.initCaches();
+    }
 
     @Test
     void whenRegisteredUser_thenReturnTrue() {
@@ -38,6 +73,18 @@ class PermissionEvaluatorTest extends YapamBaseTest {
         assertTrue(result);
     }
 
+    @Test
+    void whenRegisteredUserCached_thenDoNotQueryAgain() {
+        mockSecurityContextHolder();
+        when(userRepository.findOneById(DEFAULT_USER_ID)).thenReturn(createDefaultUserDao());
+
+        permissionEvaluator.registeredUser();
+        var result = permissionEvaluator.registeredUser();
+
+        assertTrue(result);
+        verify(userRepository, times(1)).findOneById(DEFAULT_USER_ID);
+    }
+
     @Test
     void whenUnregisteredUser_thenReturnFalse() {
         var result = permissionEvaluator.registeredUser();
@@ -48,29 +95,18 @@ class PermissionEvaluatorTest extends YapamBaseTest {
     @Test
     void whenUserHasReadAccessToFile_thenReturnTrue() {
         mockSecurityContextHolder();
-        var userDao = createDefaultUserDao();
-        var secretDao = createDefaultSecretDao();
-        var fileDao = createDefaultFileDao();
-        fileDao.setSecrets(Collections.singletonList(secretDao));
-        when(fileRepository.findOneById(DEFAULT_FILE_ID)).thenReturn(createDefaultFileDao());
-        when(userRepository.findOneById(DEFAULT_USER_ID)).thenReturn(userDao);
-        when(secretRepository.findFirstBySecretIdOrderByVersionDesc(DEFAULT_SECRET_SECRETID)).thenReturn(secretDao);
+        when(userSecretRepository.findFileGrants(DEFAULT_FILE_ID, DEFAULT_USER_ID, PageRequest.of(0, 1))).thenReturn(Collections.singletonList(DEFAULT_SECRET_SECRETID));
 
         var result = permissionEvaluator.hasAccessToFile(DEFAULT_FILE_ID, PermissionEvaluator.SecretAccessPermission.READ);
 
         assertTrue(result);
+        verify(userSecretRepository, never()).existsHeadUser(any(), any());
     }
 
     @Test
     void whenUserHasNoReadAccessToFile_thenReturnFalse() {
-        var userDao = createDefaultUserDao();
-        var secretDao = createDefaultSecretDao();
-        secretDao.getUsers().get(0).getUser().setId("OTHER-USER-ID");
-        var fileDao = createDefaultFileDao();
-        fileDao.setSecrets(Collections.singletonList(secretDao));
-        when(fileRepository.findOneById(DEFAULT_FILE_ID)).thenReturn(createDefaultFileDao());
-        when(userRepository.findOneById(DEFAULT_USER_ID)).thenReturn(userDao);
-        when(secretRepository.findFirstBySecretIdOrderByVersionDesc(DEFAULT_SECRET_SECRETID)).thenReturn(secretDao);
+        mockSecurityContextHolder();
+        when(userSecretRepository.findFileGrants(DEFAULT_FILE_ID, DEFAULT_USER_ID, PageRequest.of(0, 1))).thenReturn(Collections.emptyList());
 
         var result = permissionEvaluator.hasAccessToFile(DEFAULT_FILE_ID, PermissionEvaluator.SecretAccessPermission.READ);
 
@@ -80,13 +116,7 @@ class PermissionEvaluatorTest extends YapamBaseTest {
     @Test
     void whenUserHasWriteAccessToFile_thenReturnTrue() {
         mockSecurityContextHolder();
-        var userDao = createDefaultUserDao();
-        var secretDao = createDefaultSecretDao();
-        var fileDao = createDefaultFileDao();
-        fileDao.setSecrets(Collections.singletonList(secretDao));
-        when(fileRepository.findOneById(DEFAULT_FILE_ID)).thenReturn(createDefaultFileDao());
-        when(userRepository.findOneById(DEFAULT_USER_ID)).thenReturn(userDao);
-        when(secretRepository.findFirstBySecretIdOrderByVersionDesc(DEFAULT_SECRET_SECRETID)).thenReturn(secretDao);
+        when(userSecretRepository.findPrivilegedFileGrants(DEFAULT_FILE_ID, DEFAULT_USER_ID, PageRequest.of(0, 1))).thenReturn(Collections.singletonList(DEFAULT_SECRET_SECRETID));
 
         var result = permissionEvaluator.hasAccessToFile(DEFAULT_FILE_ID, PermissionEvaluator.SecretAccessPermission.WRITE);
 
@@ -96,14 +126,8 @@ class PermissionEvaluatorTest extends YapamBaseTest {
     @Test
     void whenUserHasNoWriteAccessToFile_thenReturnFalse() {
         mockSecurityContextHolder();
-        var userDao = createDefaultUserDao();
-        var secretDao = createDefaultSecretDao();
-        secretDao.getUsers().get(0).setPrivileged(false);
-        var fileDao = createDefaultFileDao();
-        fileDao.setSecrets(Collections.singletonList(secretDao));
-        when(fileRepository.findOneById(DEFAULT_FILE_ID)).thenReturn(createDefaultFileDao());
-        when(userRepository.findOneById(DEFAULT_USER_ID)).thenReturn(userDao);
-        when(secretRepository.findFirstBySecretIdOrderByVersionDesc(DEFAULT_SECRET_SECRETID)).thenReturn(secretDao);
+        when(userSecretRepository.findFileGrants(DEFAULT_FILE_ID, DEFAULT_USER_ID, PageRequest.of(0, 1))).thenReturn(Collections.singletonList(DEFAULT_SECRET_SECRETID));
+        when(userSecretRepository.findPrivilegedFileGrants(DEFAULT_FILE_ID, DEFAULT_USER_ID, PageRequest.of(0, 1))).thenReturn(Collections.emptyList());
 
         var result = permissionEvaluator.hasAccessToFile(DEFAULT_FILE_ID, PermissionEvaluator.SecretAccessPermission.WRITE);
 
@@ -113,10 +137,7 @@ class PermissionEvaluatorTest extends YapamBaseTest {
     @Test
     void whenUserHasReadAccessToSecret_thenReturnTrue() {
         mockSecurityContextHolder();
-        var userDao = createDefaultUserDao();
-        var secretDao = createDefaultSecretDao();
-        when(userRepository.findOneById(DEFAULT_USER_ID)).thenReturn(userDao);
-        when(secretRepository.findFirstBySecretIdOrderByVersionDesc(DEFAULT_SECRET_SECRETID)).thenReturn(secretDao);
+        when(userSecretRepository.existsHeadUser(DEFAULT_SECRET_SECRETID, DEFAULT_USER_ID)).thenReturn(true);
 
         var result = permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.READ);
 
@@ -126,11 +147,7 @@ class PermissionEvaluatorTest extends YapamBaseTest {
     @Test
     void whenUserHasNoReadAccessToSecret_thenReturnFalse() {
         mockSecurityContextHolder();
-        var userDao = createDefaultUserDao();
-        var secretDao = createDefaultSecretDao();
-        secretDao.getUsers().get(0).getUser().setId("OTHER-USER-ID");
-        when(userRepository.findOneById(DEFAULT_USER_ID)).thenReturn(userDao);
-        when(secretRepository.findFirstBySecretIdOrderByVersionDesc(DEFAULT_SECRET_SECRETID)).thenReturn(secretDao);
+        when(userSecretRepository.existsHeadUser(DEFAULT_SECRET_SECRETID, DEFAULT_USER_ID)).thenReturn(false);
 
         var result = permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.READ);
 
@@ -140,10 +157,7 @@ class PermissionEvaluatorTest extends YapamBaseTest {
     @Test
     void whenUserHasWriteAccessToSecret_thenReturnTrue() {
         mockSecurityContextHolder();
-        var userDao = createDefaultUserDao();
-        var secretDao = createDefaultSecretDao();
-        when(userRepository.findOneById(DEFAULT_USER_ID)).thenReturn(userDao);
-        when(secretRepository.findFirstBySecretIdOrderByVersionDesc(DEFAULT_SECRET_SECRETID)).thenReturn(secretDao);
+        when(userSecretRepository.existsPrivilegedHeadUser(DEFAULT_SECRET_SECRETID, DEFAULT_USER_ID)).thenReturn(true);
 
         var result = permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.WRITE);
 
@@ -153,14 +167,91 @@ class PermissionEvaluatorTest extends YapamBaseTest {
     @Test
     void whenUserHasNoWriteAccessToSecret_thenReturnFalse() {
         mockSecurityContextHolder();
-        var userDao = createDefaultUserDao();
-        var secretDao = createDefaultSecretDao();
-        secretDao.getUsers().get(0).setPrivileged(false);
-        when(userRepository.findOneById(DEFAULT_USER_ID)).thenReturn(userDao);
-        when(secretRepository.findFirstBySecretIdOrderByVersionDesc(DEFAULT_SECRET_SECRETID)).thenReturn(secretDao);
+        when(userSecretRepository.existsHeadUser(DEFAULT_SECRET_SECRETID, DEFAULT_USER_ID)).thenReturn(true);
+        when(userSecretRepository.existsPrivilegedHeadUser(DEFAULT_SECRET_SECRETID, DEFAULT_USER_ID)).thenReturn(false);
 
         var result = permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.WRITE);
 
         assertFalse(result);
     }
+
+    @Test
+    void whenSecretUnknown_thenReturnFalse() {
+        mockSecurityContextHolder();
+
+        var result = permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.READ);
+
+        assertFalse(result);
+    }
+
+    @Test
+    void whenAccessChecked_thenDoNotLoadSecret() {
+        mockSecurityContextHolder();
+
+        permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.WRITE);
+
+        verify(userSecretRepository, times(1)).existsPrivilegedHeadUser(DEFAULT_SECRET_SECRETID, DEFAULT_USER_ID);
+        verifyNoMoreInteractions(userSecretRepository);
+        verifyZeroInteractions(userRepository);
+    }
+
+    @Test
+    void whenDecisionCached_thenDoNotQueryAgain() {
+        mockSecurityContextHolder();
+        when(userSecretRepository.existsHeadUser(DEFAULT_SECRET_SECRETID, DEFAULT_USER_ID)).thenReturn(true);
+
+        permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.READ);
+        var result = permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.READ);
+
+        assertTrue(result);
+        verify(userSecretRepository, times(1)).existsHeadUser(DEFAULT_SECRET_SECRETID, DEFAULT_USER_ID);
+    }
+
+    @Test
+    void whenSecretChanged_thenInvalidateDecision() {
+        mockSecurityContextHolder();
+        when(userSecretRepository.existsPrivilegedHeadUser(DEFAULT_SECRET_SECRETID, DEFAULT_USER_ID)).thenReturn(true);
+        permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.WRITE);
+        when(userSecretRepository.existsPrivilegedHeadUser(DEFAULT_SECRET_SECRETID, DEFAULT_USER_ID)).thenReturn(false);
+
+        permissionEvaluator.onSecretChange(new SecretChangeEvent(Collections.singletonList(
+                new SecretChangeDao(DEFAULT_USER_ID, DEFAULT_SECRET_SECRETID, 2, ChangeTypeEnum.UPDATED))));
+        var result = permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.WRITE);
+
+        assertFalse(result);
+        verify(userSecretRepository, times(2)).existsPrivilegedHeadUser(DEFAULT_SECRET_SECRETID, DEFAULT_USER_ID);
+    }
+
+    @Test
+    void whenChangePolled_thenInvalidateDecision() {
+        mockSecurityContextHolder();
+        var change = new SecretChangeDao(DEFAULT_USER_ID, DEFAULT_SECRET_SECRETID, 2, ChangeTypeEnum.UNSHARED);
+        change.setId(1L);
+        when(userSecretRepository.existsHeadUser(DEFAULT_SECRET_SECRETID, DEFAULT_USER_ID)).thenReturn(true);
+        permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.READ);
+        when(userSecretRepository.existsHeadUser(DEFAULT_SECRET_SECRETID, DEFAULT_USER_ID)).thenReturn(false);
+        when(secretChangeRepository.findAllByIdGreaterThan(eq(0L), any())).thenReturn(Collections.singletonList(change));
+
+        permissionEvaluator.poll();
+        var result = permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.READ);
+
+        assertFalse(result);
+        verify(userSecretRepository, times(2)).existsHeadUser(DEFAULT_SECRET_SECRETID, DEFAULT_USER_ID);
+    }
+
+    @Test
+    void whenDecisionTakenInTransaction_thenDoNotCacheIt() {
+        mockSecurityContextHolder();
+        when(userSecretRepository.existsHeadUser(DEFAULT_SECRET_SECRETID, DEFAULT_USER_ID)).thenReturn(true);
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.READ);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.READ);
+
+        verify(userSecretRepository, times(2)).existsHeadUser(DEFAULT_SECRET_SECRETID, DEFAULT_USER_ID);
+    }
 }
@@ -0,0 +1,190 @@
+package app.yapam.common.service;
+
+import app.yapam.YapamBaseTest;
+import app.yapam.change.ChangeService;
+import app.yapam.change.model.ChangeTypeEnum;
+import app.yapam.change.model.SecretChangeEvent;
+import app.yapam.common.repository.SecretChangeDao;
+import app.yapam.common.repository.SecretChangeRepository;
+import app.yapam.common.repository.SecretRepository;
+import app.yapam.common.repository.SecretSearchDocument;
+import app.yapam.config.YapamProperties;
+import app.yapam.secret.model.SecretTypeEnum;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(SecretSearchService.class)
+@ActiveProfiles("test")
+class SecretSearchServiceTest extends YapamBaseTest {
+
+    private static final String OTHER_SECRET_ID = "9b0e2f4c-1d7a-4c4e-8d3f-2a6b5c7d8e9f";
+    private static final String OTHER_USER_ID = "3e1d5c7b-9a2f-4b6e-8c0d-1f3a5b7c9d2e";
+
+    @Autowired private SecretSearchService secretSearchService;
+    @MockBean private SecretRepository secretRepository;
+    @MockBean private SecretChangeRepository secretChangeRepository;
+    @MockBean private YapamProperties yapamProperties;
+    @MockBean private ChangeService changeService;
+
+    @BeforeEach
+    void beforeEach() {
+        when(yapamProperties.getSearch()).thenReturn(new YapamProperties.SearchProperties());
+        when(changeService.getSettledChanges(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(secretChangeRepository.findMaxIdByCreationDateBefore(any())).thenReturn(0L);
+        when(secretRepository.findSearchDocuments(null)).thenReturn(Arrays.asList(
+                createSearchDocument(DEFAULT_SECRET_SECRETID, "Mail Account", DEFAULT_USER_ID, DEFAULT_TAG_NAME),
+                createSearchDocument(OTHER_SECRET_ID, "Bank Account", OTHER_USER_ID, "finance")));
+        secretSearchService.rebuild();
+    }
+
+    @Test
+    void whenKeywordInTitle_thenReturnOnlyOwnSecrets() {
+        var result = secretSearchService.search(DEFAULT_USER_ID, Collections.singletonList("account"), "", 10);
+
+        assertEquals(Collections.singletonList(DEFAULT_SECRET_SECRETID), result);
+    }
+
+    @Test
+    void whenKeywordInTag_thenReturnSecret() {
+        var result = secretSearchService.search(OTHER_USER_ID, Collections.singletonList("FIN"), "", 10);
+
+        assertEquals(Collections.singletonList(OTHER_SECRET_ID), result);
+    }
+
+    @Test
+    void whenShortKeyword_thenScanUserSecrets() {
+        var result = secretSearchService.search(DEFAULT_USER_ID, Collections.singletonList("ma"), "", 10);
+
+        assertEquals(Collections.singletonList(DEFAULT_SECRET_SECRETID), result);
+    }
+
+    @Test
+    void whenKeywordNotContained_thenReturnEmpty() {
+        var result = secretSearchService.search(DEFAULT_USER_ID, Collections.singletonList("mailtest"), "", 10);
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void whenCountTypes_thenCountOnlyOwnSecrets() {
+        var result = secretSearchService.countTypes(DEFAULT_USER_ID);
+
+        assertEquals(SecretTypeEnum.values().length, result.size());
+        assertEquals(Long.valueOf(1L), result.get(DEFAULT_SECRET_TYPE));
+        assertEquals(1L, result.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void whenCountTags_thenCountOnlyOwnSecrets() {
+        var result = secretSearchService.countTags(DEFAULT_USER_ID);
+
+        assertEquals(1, result.size());
+        assertEquals(DEFAULT_TAG_NAME + "-id", result.get(0).getId());
+        assertEquals(DEFAULT_TAG_NAME, result.get(0).getName());
+        assertEquals(Long.valueOf(1L), result.get(0).getCount());
+    }
+
+    @Test
+    void whenSecretUnshared_thenRemoveFromUserBitmap() {
+        when(secretRepository.findSearchDocuments(Set.of(DEFAULT_SECRET_SECRETID))).thenReturn(Collections.singletonList(
+                createSearchDocument(DEFAULT_SECRET_SECRETID, "Mail Account", OTHER_USER_ID, DEFAULT_TAG_NAME)));
+
+        secretSearchService.onSecretChange(createSecretChangeEvent(DEFAULT_SECRET_SECRETID));
+
+        assertTrue(secretSearchService.countTags(DEFAULT_USER_ID).isEmpty());
+        assertEquals(2, secretSearchService.countTags(OTHER_USER_ID).size());
+    }
+
+    @Test
+    void whenAfterCursor_thenSkipPreviousSecrets() {
+        when(secretRepository.findSearchDocuments(any())).thenReturn(Collections.singletonList(
+                createSearchDocument(OTHER_SECRET_ID, "Bank Account", DEFAULT_USER_ID, "finance")));
+        secretSearchService.onSecretChange(createSecretChangeEvent(OTHER_SECRET_ID));
+
+        var result = secretSearchService.search(DEFAULT_USER_ID, Collections.singletonList("account"), DEFAULT_SECRET_SECRETID, 10);
+
+        assertEquals(Collections.singletonList(OTHER_SECRET_ID), result);
+    }
+
+    @Test
+    void whenSecretChanged_thenUpdateIndex() {
+        when(secretRepository.findSearchDocuments(Set.of(DEFAULT_SECRET_SECRETID))).thenReturn(Collections.singletonList(
+                createSearchDocument(DEFAULT_SECRET_SECRETID, "Mail Server", DEFAULT_USER_ID)));
+
+        secretSearchService.onSecretChange(createSecretChangeEvent(DEFAULT_SECRET_SECRETID));
+
+        assertTrue(secretSearchService.search(DEFAULT_USER_ID, Collections.singletonList("account"), "", 10).isEmpty());
+        assertEquals(Collections.singletonList(DEFAULT_SECRET_SECRETID),
+                secretSearchService.search(DEFAULT_USER_ID, Collections.singletonList("server"), "", 10));
+    }
+
+    @Test
+    void whenSecretDeleted_thenRemoveFromIndex() {
+        when(secretRepository.findSearchDocuments(Set.of(DEFAULT_SECRET_SECRETID))).thenReturn(Collections.emptyList());
+
+        secretSearchService.onSecretChange(createSecretChangeEvent(DEFAULT_SECRET_SECRETID));
+
+        assertTrue(secretSearchService.search(DEFAULT_USER_ID, Collections.singletonList("mail"), "", 10).isEmpty());
+    }
+
+    @Test
+    void whenChangesPolled_thenUpdateIndex() {
+        var change = new SecretChangeDao(OTHER_USER_ID, DEFAULT_SECRET_SECRETID, 2, ChangeTypeEnum.SHARED);
+        change.setId(1L);
+        when(secretChangeRepository.findAllByIdGreaterThan(eq(0L), any())).thenReturn(Collections.singletonList(change));
+        when(secretRepository.findSearchDocuments(Set.of(DEFAULT_SECRET_SECRETID))).thenReturn(Collections.singletonList(
+                createSearchDocument(DEFAULT_SECRET_SECRETID, "Mail Account", OTHER_USER_ID)));
+
+        secretSearchService.poll();
+
+        assertEquals(Arrays.asList(DEFAULT_SECRET_SECRETID, OTHER_SECRET_ID),
+                secretSearchService.search(OTHER_USER_ID, Collections.singletonList("account"), "", 10));
+        verify(secretChangeRepository, times(1)).findAllByIdGreaterThan(eq(0L), any());
+    }
+
+    @Test
+    void whenPolledChangeNotSettled_thenPollItAgain() {
+        var change = new SecretChangeDao(OTHER_USER_ID, DEFAULT_SECRET_SECRETID, 2, ChangeTypeEnum.SHARED);
+        change.setId(1L);
+        when(secretChangeRepository.findAllByIdGreaterThan(eq(0L), any())).thenReturn(Collections.singletonList(change));
+        when(changeService.getSettledChanges(any())).thenReturn(Collections.emptyList());
+        when(secretRepository.findSearchDocuments(Set.of(DEFAULT_SECRET_SECRETID))).thenReturn(Collections.singletonList(
+                createSearchDocument(DEFAULT_SECRET_SECRETID, "Mail Account", OTHER_USER_ID)));
+
+        secretSearchService.poll();
+        secretSearchService.poll();
+
+        assertEquals(Arrays.asList(DEFAULT_SECRET_SECRETID, OTHER_SECRET_ID),
+                secretSearchService.search(OTHER_USER_ID, Collections.singletonList("account"), "", 10));
+        verify(secretChangeRepository, times(2)).findAllByIdGreaterThan(eq(0L), any());
+    }
+
+    private SecretSearchDocument createSearchDocument(String secretId, String title, String userId, String... tags) {
+        var document = new SecretSearchDocument(secretId, title, DEFAULT_SECRET_TYPE);
+        document.getUserIds().add(userId);
+        for (String tag : tags) {
+            document.getTags().put(tag + "-id", tag);
+        }
+        return document;
+    }
+
+    private SecretChangeEvent createSecretChangeEvent(String secretId) {
+        return new SecretChangeEvent(Collections.singletonList(new SecretChangeDao(DEFAULT_USER_ID, secretId, 1, ChangeTypeEnum.UPDATED)));
+    }
+}
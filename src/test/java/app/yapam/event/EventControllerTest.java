@@ -0,0 +1,35 @@
+package app.yapam.event;
+
+import app.yapam.YapamBaseTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(EventController.class)
+@ActiveProfiles("test")
+class EventControllerTest extends YapamBaseTest {
+
+    @Autowired private MockMvc mvc;
+    @MockBean private EventService eventService;
+
+    @Test
+    void whenSubscribe_thenStartAsyncStream() throws Exception {
+        when(eventService.subscribe()).thenReturn(new SseEmitter());
+
+        mvc.perform(
+                get(API_EVENTS_BASE_URL)
+        )
+                .andExpect(request().asyncStarted());
+    }
+}
@@ -0,0 +1,198 @@
+package app.yapam.event;
+
+import app.yapam.YapamBaseTest;
+import app.yapam.change.ChangeService;
+import app.yapam.change.model.ChangeTypeEnum;
+import app.yapam.change.model.SecretChangeEvent;
+import app.yapam.change.model.response.ChangeResponse;
+import app.yapam.common.repository.SecretChangeDao;
+import app.yapam.common.repository.SecretChangeRepository;
+import app.yapam.common.service.MappingService;
+import app.yapam.common.service.PaginationService;
+import app.yapam.config.YapamProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(EventService.class)
+@ActiveProfiles("test")
+class EventServiceTest extends YapamBaseTest {
+
+    private static final AtomicLong CHANGE_IDS = new AtomicLong();
+
+    @Autowired private EventService eventService;
+    @Autowired private YapamProperties yapamProperties;
+    @Autowired private ManualTaskExecutor eventExecutor;
+    @MockBean private MappingService mappingService;
+    @MockBean private PaginationService paginationService;
+    @MockBean private SecretChangeRepository secretChangeRepository;
+    @MockBean private ChangeService changeService;
+
+    @TestConfiguration
+    static class EventServiceTestConfiguration {
+
+        @Bean
+        YapamProperties yapamProperties() {
+            return new YapamProperties();
+        }
+
+        @Bean
+        ManualTaskExecutor eventExecutor() {
+            return new ManualTaskExecutor();
+        }
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        mockSecurityContextHolder();
+        yapamProperties.setEvents(new YapamProperties.EventProperties());
+        eventExecutor.reset();
+        when(mappingService.secretChangeDaoToResponse(any())).thenReturn(new ChangeResponse());
+        when(paginationService.encodeCursor(any())).thenReturn("cursor");
+        when(changeService.getSettledChanges(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        eventService.initCursor();
+    }
+
+    @Test
+    void subscribe() {
+        var emitter = eventService.subscribe();
+
+        assertEquals(new YapamProperties.EventProperties().getTimeout(), emitter.getTimeout());
+        assertEquals(1, eventService.getSubscriberCount(DEFAULT_USER_ID));
+        emitter.complete();
+    }
+
+    @Test
+    void onSecretChange_whenEmitterClosed_thenRemoveSubscriber() {
+        var emitter = eventService.subscribe();
+        emitter.complete();
+
+        eventService.onSecretChange(createSecretChangeEvent());
+
+        assertEquals(0, eventService.getSubscriberCount(DEFAULT_USER_ID));
+    }
+
+    @Test
+    void onSecretChange_whenClientFallsBehind_thenDropSubscriber() {
+        yapamProperties.getEvents().setMaxPendingEvents(1);
+        eventExecutor.paused = true;
+        eventService.subscribe();
+
+        eventService.onSecretChange(createSecretChangeEvent());
+        assertEquals(1, eventService.getSubscriberCount(DEFAULT_USER_ID));
+        eventService.onSecretChange(createSecretChangeEvent());
+
+        assertEquals(0, eventService.getSubscriberCount(DEFAULT_USER_ID));
+        assertEquals(1, eventExecutor.tasks.size());
+    }
+
+    @Test
+    void onSecretChange_whenExecutorFull_thenDropSubscriber() {
+        eventExecutor.rejecting = true;
+        eventService.subscribe();
+
+        eventService.onSecretChange(createSecretChangeEvent());
+
+        assertEquals(0, eventService.getSubscriberCount(DEFAULT_USER_ID));
+    }
+
+    @Test
+    void poll_whenChangeCommittedElsewhere_thenSendIt() {
+        var change = createSecretChange();
+        when(secretChangeRepository.findAllByIdGreaterThan(eq(0L), any())).thenReturn(Collections.singletonList(change));
+        eventExecutor.paused = true;
+        var emitter = eventService.subscribe();
+
+        eventService.poll();
+
+        assertEquals(1, eventExecutor.tasks.size());
+        verify(mappingService, times(1)).secretChangeDaoToResponse(change);
+        closeSubscriber(emitter);
+    }
+
+    @Test
+    void poll_whenChangeAlreadySent_thenSkipIt() {
+        var change = createSecretChange();
+        when(secretChangeRepository.findAllByIdGreaterThan(eq(0L), any())).thenReturn(Collections.singletonList(change));
+        eventExecutor.paused = true;
+        var emitter = eventService.subscribe();
+        eventService.onSecretChange(new SecretChangeEvent(Collections.singletonList(change)));
+
+        eventService.poll();
+
+        verify(mappingService, times(1)).secretChangeDaoToResponse(change);
+        closeSubscriber(emitter);
+    }
+
+    @Test
+    void sendHeartbeat_whenEmitterClosed_thenRemoveSubscriber() {
+        var emitter = eventService.subscribe();
+        emitter.complete();
+
+        eventService.sendHeartbeat();
+
+        assertEquals(0, eventService.getSubscriberCount(DEFAULT_USER_ID));
+    }
+
+    private void closeSubscriber(SseEmitter emitter) {
+        emitter.complete();
+        eventExecutor.tasks.forEach(Runnable::run);
+        assertEquals(0, eventService.getSubscriberCount(DEFAULT_USER_ID));
+    }
+
+    private SecretChangeDao createSecretChange() {
+        var change = new SecretChangeDao(DEFAULT_USER_ID, DEFAULT_SECRET_SECRETID, DEFAULT_SECRET_VERSION, ChangeTypeEnum.SHARED);
+        change.setId(CHANGE_IDS.incrementAndGet());
+        return change;
+    }
+
+    private SecretChangeEvent createSecretChangeEvent() {
+        return new SecretChangeEvent(Collections.singletonList(createSecretChange()));
+    }
+
+    static class ManualTaskExecutor implements TaskExecutor {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+        private boolean paused;
+        private boolean rejecting;
+
+        @Override
+        public void execute(Runnable task) {
+            if (rejecting) {
+                throw new TaskRejectedException("Executor is full");
+            }
+            if (paused) {
+                tasks.add(task);
+            } else {
+                task.run();
+            }
+        }
+
+        void reset() {
+            tasks.clear();
+            paused = false;
+            rejecting = false;
+        }
+    }
+}
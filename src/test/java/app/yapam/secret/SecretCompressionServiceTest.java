@@ -0,0 +1,70 @@
+package app.yapam.secret;
+
+import app.yapam.YapamBaseTest;
+import app.yapam.common.repository.SecretDataConverter;
+import app.yapam.common.repository.SecretDataDao;
+import app.yapam.common.repository.SecretDataRepository;
+import app.yapam.config.YapamProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(SecretCompressionService.class)
+@ActiveProfiles("test")
+class SecretCompressionServiceTest extends YapamBaseTest {
+
+    @Autowired private SecretCompressionService secretCompressionService;
+    @MockBean private YapamProperties yapamProperties;
+    @MockBean private SecretDataRepository secretDataRepository;
+    @MockBean private SecretDataConverter secretDataConverter;
+
+    @BeforeEach
+    void beforeEach() {
+        when(yapamProperties.getCompression()).thenReturn(new YapamProperties.CompressionProperties());
+    }
+
+    @Test
+    void compressBatch() {
+        var hashes = Arrays.asList("a", "b");
+        var compressible = new SecretDataDao("a", "compressible");
+        var incompressible = new SecretDataDao("b", "incompressible");
+        var compressed = new byte[]{1, 2};
+        var raw = new byte[]{3};
+        when(secretDataRepository.findUncompressedHashes("", 200)).thenReturn(hashes);
+        when(secretDataRepository.findAllById(hashes)).thenReturn(Arrays.asList(compressible, incompressible));
+        when(secretDataConverter.convertToDatabaseColumn("compressible")).thenReturn(compressed);
+        when(secretDataConverter.convertToDatabaseColumn("incompressible")).thenReturn(raw);
+        when(secretDataConverter.isCompressed(compressed)).thenReturn(true);
+
+        var result = secretCompressionService.compressBatch("");
+
+        assertEquals("b", result);
+        verify(secretDataRepository, times(1)).updateData("a", compressed);
+        verify(secretDataRepository, never()).updateData(eq("b"), any());
+    }
+
+    @Test
+    void compressBatch_whenNothingLeft_thenReturnNull() {
+        when(secretDataRepository.findUncompressedHashes("b", 200)).thenReturn(Collections.emptyList());
+
+        var result = secretCompressionService.compressBatch("b");
+
+        assertNull(result);
+        verify(secretDataRepository, never()).updateData(anyString(), any());
+    }
+}
@@ -1,27 +1,54 @@
 package app.yapam.secret;
 
 import app.yapam.YapamBaseTest;
+import app.yapam.common.service.JsonListWriter;
+import app.yapam.secret.model.response.SimpleSecretResponse;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(SecretController.class)
+@Import(JsonListWriter.class)
 @ActiveProfiles("test")
 class SecretControllerTest extends YapamBaseTest {
 
     @Autowired private MockMvc mvc;
     @MockBean private SecretService secretService;
 
+    @Test
+    void whenBatchSecrets_thenReturnSuccessful() throws Exception {
+        mvc.perform(
+                post(API_SECRETS_BATCH_URL)
+                        .contentType(MediaType.APPLICATION_JSON_UTF8_VALUE)
+                        .content("{\"operations\":[]}")
+        )
+                .andExpect(status().is2xxSuccessful());
+    }
+
     @Test
     void whenCreateSecret_thenReturnSuccessful() throws Exception {
         mvc.perform(
@@ -42,6 +69,18 @@ class SecretControllerTest extends YapamBaseTest {
                 .andExpect(status().is2xxSuccessful());
     }
 
+    @Test
+    void whenUpdateSecretWithIfMatch_thenPassExpectedVersion() throws Exception {
+        mvc.perform(
+                put(API_SINGLE_SECRET_URL, "secretId")
+                        .header(HttpHeaders.IF_MATCH, "\"secretId:1\"")
+                        .contentType(MediaType.APPLICATION_JSON_UTF8_VALUE)
+                        .content("{}")
+        )
+                .andExpect(status().is2xxSuccessful());
+        verify(secretService).updateSecret(eq("secretId"), any(), eq("\"secretId:1\""));
+    }
+
     @Test
     void whenGetAllSecrets_thenReturnSuccessful() throws Exception {
         mvc.perform(
@@ -50,6 +89,25 @@ class SecretControllerTest extends YapamBaseTest {
                 .andExpect(status().is2xxSuccessful());
     }
 
+    @Test
+    void whenStreamAllSecrets_thenWriteSameFormatAsGetAllSecrets() throws Exception {
+        when(secretService.streamAllSecrets(any(), any(), any(), any())).thenAnswer(invocation -> {
+            Consumer<SimpleSecretResponse> consumer = invocation.getArgument(3);
+            consumer.accept(createDefaultSimpleSecretResponse());
+            return "cursor";
+        });
+
+        mvc.perform(
+                get(API_SECRETS_BASE_URL)
+                        .param("stream", "true")
+                        .param("limit", "1")
+        )
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(content().json("{\"secrets\":[{\"secretId\":\"" + DEFAULT_SECRET_SECRETID + "\",\"title\":\"" + DEFAULT_SECRET_TITLE +
+                        "\",\"tags\":[\"" + DEFAULT_TAG_NAME + "\"]}],\"next\":\"cursor\"}", true));
+        verify(secretService, never()).getAllSecrets(any(), any(), any());
+    }
+
     @Test
     void whenGetSecretById_thenReturnSuccessful() throws Exception {
         mvc.perform(
@@ -58,6 +116,60 @@ class SecretControllerTest extends YapamBaseTest {
                 .andExpect(status().is2xxSuccessful());
     }
 
+    @Test
+    void whenGetSecretByIdWithVersion_thenReturnImmutable() throws Exception {
+        when(secretService.getSecretETag("secretId", 1)).thenReturn("secretId:1");
+
+        mvc.perform(
+                get(API_SINGLE_SECRET_URL, "secretId")
+                        .param("version", "1")
+        )
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"secretId:1\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")));
+    }
+
+    @Test
+    void whenGetSecretByIdWithMatchingETag_thenReturnNotModified() throws Exception {
+        when(secretService.getSecretETag("secretId", 0)).thenReturn("secretId:2");
+
+        mvc.perform(
+                get(API_SINGLE_SECRET_URL, "secretId")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"secretId:2\"")
+        )
+                .andExpect(status().isNotModified());
+        verify(secretService, never()).getSecretById(anyString(), anyInt());
+    }
+
+    @Test
+    void whenGetAllSecretsWithMatchingETag_thenReturnNotModified() throws Exception {
+        when(secretService.getAllSecretsETag(any(), any(), any())).thenReturn("listETag");
+
+        mvc.perform(
+                get(API_SECRETS_BASE_URL)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"listETag\"")
+        )
+                .andExpect(status().isNotModified());
+        verify(secretService, never()).getAllSecrets(any(), any(), any());
+    }
+
+    @Test
+    void whenGetSecretFacets_thenReturnSuccessful() throws Exception {
+        mvc.perform(
+                get(API_SECRET_FACETS_URL)
+        )
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"));
+    }
+
+    @Test
+    void whenGetSecretVersions_thenReturnSuccessful() throws Exception {
+        mvc.perform(
+                get(API_SECRET_VERSIONS_URL, "secretId")
+        )
+                .andExpect(status().is2xxSuccessful());
+    }
+
     @Test
     void whenDeleteSecret_thenReturnSuccessful() throws Exception {
         mvc.perform(
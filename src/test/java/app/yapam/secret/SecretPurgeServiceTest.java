@@ -0,0 +1,89 @@
+package app.yapam.secret;
+
+import app.yapam.YapamBaseTest;
+import app.yapam.common.repository.SecretDataRepository;
+import app.yapam.common.repository.SecretRepository;
+import app.yapam.common.repository.SecretTombstoneRepository;
+import app.yapam.config.YapamProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(SecretPurgeService.class)
+@ActiveProfiles("test")
+class SecretPurgeServiceTest extends YapamBaseTest {
+
+    @Autowired private SecretPurgeService secretPurgeService;
+    @MockBean private YapamProperties yapamProperties;
+    @MockBean private SecretRepository secretRepository;
+    @MockBean private SecretDataRepository secretDataRepository;
+    @MockBean private SecretTombstoneRepository secretTombstoneRepository;
+
+    private YapamProperties.PurgeProperties purgeProperties;
+
+    @BeforeEach
+    void beforeEach() {
+        purgeProperties = new YapamProperties.PurgeProperties();
+        purgeProperties.setBatchSize(2);
+        when(yapamProperties.getPurge()).thenReturn(purgeProperties);
+    }
+
+    @Test
+    void purgeBatch() {
+        var ids = Collections.singletonList(DEFAULT_SECRET_ID);
+        var hashes = Collections.singletonList(DEFAULT_SECRET_DATA_HASH);
+        when(secretRepository.findDeletedIds(PageRequest.of(0, 2))).thenReturn(ids);
+        when(secretDataRepository.findHashesByIdIn(ids)).thenReturn(hashes);
+
+        var result = secretPurgeService.purgeBatch();
+
+        assertEquals(1, result);
+        InOrder inOrder = inOrder(secretRepository, secretDataRepository, secretTombstoneRepository);
+        inOrder.verify(secretDataRepository).lockByHashIn(hashes);
+        inOrder.verify(secretRepository).deleteUserSecretsByIdIn(ids);
+        inOrder.verify(secretRepository).deleteSecretFilesByIdIn(ids);
+        inOrder.verify(secretRepository).deleteSecretTagsByIdIn(ids);
+        inOrder.verify(secretRepository).deleteVersionsByIdIn(ids);
+        inOrder.verify(secretDataRepository).deleteUnreferencedByHashIn(hashes);
+        inOrder.verify(secretTombstoneRepository).deletePurged();
+    }
+
+    @Test
+    void purgeBatch_whenMoreVersionsRemain_thenKeepTombstones() {
+        var ids = Arrays.asList(DEFAULT_SECRET_ID, "5d8f2970-6bf5-4d51-9756-0d6b63e2c118");
+        when(secretRepository.findDeletedIds(PageRequest.of(0, 2))).thenReturn(ids);
+
+        var result = secretPurgeService.purgeBatch();
+
+        assertEquals(2, result);
+        verify(secretRepository, times(1)).deleteVersionsByIdIn(ids);
+        verify(secretTombstoneRepository, never()).deletePurged();
+    }
+
+    @Test
+    void purgeBatch_whenNoVersionsLeft_thenOnlyDeleteTombstones() {
+        when(secretRepository.findDeletedIds(PageRequest.of(0, 2))).thenReturn(Collections.emptyList());
+
+        var result = secretPurgeService.purgeBatch();
+
+        assertEquals(0, result);
+        verify(secretRepository, never()).deleteVersionsByIdIn(any());
+        verifyZeroInteractions(secretDataRepository);
+        verify(secretTombstoneRepository, times(1)).deletePurged();
+    }
+}
@@ -0,0 +1,82 @@
+package app.yapam.secret;
+
+import app.yapam.YapamBaseTest;
+import app.yapam.common.repository.SecretDataRepository;
+import app.yapam.common.repository.SecretRepository;
+import app.yapam.config.YapamProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(SecretRetentionService.class)
+@ActiveProfiles("test")
+class SecretRetentionServiceTest extends YapamBaseTest {
+
+    @Autowired private SecretRetentionService secretRetentionService;
+    @MockBean private YapamProperties yapamProperties;
+    @MockBean private SecretRepository secretRepository;
+    @MockBean private SecretDataRepository secretDataRepository;
+
+    private YapamProperties.RetentionProperties retentionProperties;
+
+    @BeforeEach
+    void beforeEach() {
+        retentionProperties = new YapamProperties.RetentionProperties();
+        when(yapamProperties.getRetention()).thenReturn(retentionProperties);
+    }
+
+    @Test
+    void compactBatch() {
+        retentionProperties.setKeepVersions(5);
+        var ids = Collections.singletonList(DEFAULT_SECRET_ID);
+        var hashes = Collections.singletonList(DEFAULT_SECRET_DATA_HASH);
+        when(secretRepository.findExpiredIds(eq(5), any(LocalDateTime.class), any(Pageable.class))).thenReturn(ids);
+        when(secretDataRepository.findHashesByIdIn(ids)).thenReturn(hashes);
+
+        var result = secretRetentionService.compactBatch();
+
+        assertEquals(1, result);
+        InOrder inOrder = inOrder(secretRepository, secretDataRepository);
+        inOrder.verify(secretDataRepository).lockByHashIn(hashes);
+        inOrder.verify(secretRepository).deleteUserSecretsByIdIn(ids);
+        inOrder.verify(secretRepository).deleteSecretFilesByIdIn(ids);
+        inOrder.verify(secretRepository).deleteSecretTagsByIdIn(ids);
+        inOrder.verify(secretRepository).deleteVersionsByIdIn(ids);
+        inOrder.verify(secretDataRepository).deleteUnreferencedByHashIn(hashes);
+    }
+
+    @Test
+    void compactBatch_whenNoVersionExpired_thenDeleteNothing() {
+        retentionProperties.setKeepDays(30);
+
+        var result = secretRetentionService.compactBatch();
+
+        assertEquals(0, result);
+        verify(secretRepository, times(1)).findExpiredIds(eq(1), any(LocalDateTime.class), any(Pageable.class));
+        verify(secretRepository, never()).deleteVersionsByIdIn(any());
+    }
+
+    @Test
+    void compactBatch_whenNoPolicyConfigured_thenKeepAllVersions() {
+        var result = secretRetentionService.compactBatch();
+
+        assertEquals(0, result);
+        verifyZeroInteractions(secretRepository, secretDataRepository);
+    }
+}
@@ -0,0 +1,125 @@
+package app.yapam.secret;
+
+import app.yapam.YapamBaseTest;
+import app.yapam.change.ChangeService;
+import app.yapam.common.repository.*;
+import app.yapam.common.service.FilterEvaluator;
+import app.yapam.common.service.MappingService;
+import app.yapam.common.service.PaginationService;
+import app.yapam.common.service.PermissionEvaluator;
+import app.yapam.common.service.SecretSearchService;
+import app.yapam.file.FileService;
+import app.yapam.tag.TagService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(SpringExtension.class)
+@DataJpaTest(properties = {
+        "spring.jpa.database=h2",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.liquibase.enabled=false"
+})
+@Import({SecretService.class, MappingService.class, SecretDataConverter.class, PaginationService.class, FilterEvaluator.class})
+@ActiveProfiles("test")
+class SecretServiceQueryCountTest extends YapamBaseTest {
+
+    @Autowired private SecretService secretService;
+    @Autowired private TestEntityManager testEntityManager;
+    @MockBean private FileService fileService;
+    @MockBean private TagService tagService;
+    @MockBean private ChangeService changeService;
+    @MockBean private PermissionEvaluator permissionEvaluator;
+    @MockBean private SecretSearchService secretSearchService;
+
+    private Statistics statistics;
+    private UserDao userDao;
+    private TagDao tagDao;
+    private SecretDataDao secretDataDao;
+
+    @BeforeEach
+    void beforeEach() {
+        mockSecurityContextHolder();
+        statistics = testEntityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        userDao = new UserDao();
+        userDao.setId(DEFAULT_USER_ID);
+        userDao.setName(DEFAULT_USER_NAME);
+        userDao.setEmail(DEFAULT_USER_EMAIL);
+        userDao.setLocale(DEFAULT_USER_LOCALE);
+        userDao.setCreationDate(DEFAULT_USER_CREATION_DATE);
+        userDao = testEntityManager.persist(userDao);
+
+        tagDao = new TagDao();
+        tagDao.setName(DEFAULT_TAG_NAME);
+        tagDao = testEntityManager.persist(tagDao);
+
+        secretDataDao = testEntityManager.persist(new SecretDataDao(DEFAULT_SECRET_DATA_HASH, DEFAULT_SECRET_DATA));
+    }
+
+    @Test
+    void getAllSecrets_whenManySecrets_thenQueryCountStaysConstant() {
+        persistSecrets(10);
+        var fewSecretsStatements = countStatements(new String[]{""}, 10);
+        persistSecrets(190);
+        var manySecretsStatements = countStatements(new String[]{""}, 200);
+
+        assertEquals(fewSecretsStatements, manySecretsStatements);
+    }
+
+    @Test
+    void getAllSecrets_whenManySecretsMatchKeyword_thenQueryCountStaysConstant() {
+        persistSecrets(10);
+        var fewSecretsStatements = countStatements(new String[]{DEFAULT_TAG_NAME}, 10);
+        persistSecrets(190);
+        var manySecretsStatements = countStatements(new String[]{DEFAULT_TAG_NAME}, 200);
+
+        assertEquals(fewSecretsStatements, manySecretsStatements);
+    }
+
+    private long countStatements(String[] keywords, int expectedSecrets) {
+        statistics.clear();
+
+        var result = secretService.getAllSecrets(keywords, null, null);
+
+        assertEquals(expectedSecrets, result.getSecrets().size());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void persistSecrets(int count) {
+        for (int i = 0; i < count; i++) {
+            var secretDao = new SecretDao();
+            secretDao.setSecretId(UUID.randomUUID().toString());
+            secretDao.setTitle(DEFAULT_SECRET_TITLE);
+            secretDao.setType(DEFAULT_SECRET_TYPE);
+            secretDao.setVersion(DEFAULT_SECRET_VERSION);
+            secretDao.setContent(secretDataDao);
+            secretDao.setTags(Collections.singletonList(tagDao));
+            secretDao = testEntityManager.persist(secretDao);
+            testEntityManager.persist(new UserSecretDao(secretDao, userDao, true));
+            testEntityManager.persist(new SecretHeadDao(secretDao));
+        }
+        testEntityManager.flush();
+        testEntityManager.clear();
+        userDao = testEntityManager.find(UserDao.class, userDao.getId());
+        tagDao = testEntityManager.find(TagDao.class, tagDao.getId());
+        secretDataDao = testEntityManager.find(SecretDataDao.class, secretDataDao.getHash());
+    }
+}
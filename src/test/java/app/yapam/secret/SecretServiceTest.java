@@ -1,50 +1,209 @@
 package app.yapam.secret;
 
 import app.yapam.YapamBaseTest;
+import app.yapam.change.ChangeService;
+import app.yapam.common.error.InvalidBatchOperationException;
+import app.yapam.common.error.SecretVersionConflictException;
+import app.yapam.common.error.UnknownReferenceException;
 import app.yapam.common.error.UnknownSecretException;
 import app.yapam.common.repository.*;
+import app.yapam.common.service.FilterEvaluator;
 import app.yapam.common.service.MappingService;
+import app.yapam.common.service.PaginationService;
+import app.yapam.common.service.PermissionEvaluator;
+import app.yapam.common.service.SecretSearchService;
+import app.yapam.config.YapamProperties;
 import app.yapam.file.FileService;
 import app.yapam.secret.model.Secret;
+import app.yapam.secret.model.SecretBatchOperationTypeEnum;
+import app.yapam.secret.model.SecretTypeEnum;
+import app.yapam.secret.model.request.SecretBatchOperation;
+import app.yapam.secret.model.request.SecretBatchRequest;
+import app.yapam.secret.model.request.SecretRequest;
+import app.yapam.secret.model.request.UserIdSecretPrivilege;
+import app.yapam.secret.model.response.SecretTagFacetResponse;
+import app.yapam.secret.model.response.SecretVersionResponse;
+import app.yapam.secret.model.response.SimpleSecretResponse;
 import app.yapam.tag.TagService;
-import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(SecretService.class)
+@Import(FilterEvaluator.class)
 @ActiveProfiles("test")
 class SecretServiceTest extends YapamBaseTest {
 
-    private static SpelAwareProxyProjectionFactory projectionFactory;
     @Autowired private SecretService secretService;
     @MockBean private UserRepository userRepository;
     @MockBean private FileService fileService;
     @MockBean private TagService tagService;
+    @MockBean private ChangeService changeService;
     @MockBean private MappingService mappingService;
+    @MockBean private PaginationService paginationService;
+    @MockBean private PermissionEvaluator permissionEvaluator;
+    @MockBean private SecretSearchService secretSearchService;
     @MockBean private SecretRepository secretRepository;
+    @MockBean private SecretHeadRepository secretHeadRepository;
+    @MockBean private SecretDataRepository secretDataRepository;
+    @MockBean private SecretTombstoneRepository secretTombstoneRepository;
     @MockBean private UserSecretRepository userSecretRepository;
+    @MockBean private PlatformTransactionManager transactionManager;
+    @MockBean private YapamProperties yapamProperties;
 
-    @BeforeAll
-    static void beforeAll() {
-        projectionFactory = new SpelAwareProxyProjectionFactory();
+    @BeforeEach
+    void beforeEach() {
+        when(yapamProperties.getBatch()).thenReturn(new YapamProperties.BatchProperties());
+    }
+
+    @Test
+    void batchSecrets() {
+        var secretRequest = createDefaultSecretRequest();
+        var secret = createDefaultSecret();
+        var secretDao = createDefaultSecretDao();
+        when(mappingService.secretFromRequest(secretRequest)).thenReturn(secret);
+        when(mappingService.secretToDao(secret)).thenReturn(secretDao);
+        when(secretRepository.save(any(SecretDao.class))).thenReturn(secretDao);
+        when(mappingService.secretToResponse(any(Secret.class))).thenReturn(createDefaultSecretResponse());
+        when(permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.READ)).thenReturn(true);
+
+        var result = secretService.batchSecrets(createBatchRequest(
+                createBatchOperation(SecretBatchOperationTypeEnum.CREATE, null, secretRequest),
+                createBatchOperation(SecretBatchOperationTypeEnum.DELETE, DEFAULT_SECRET_SECRETID, null)
+        ));
+
+        assertEquals(2, result.getResults().size());
+        assertEquals(201, result.getResults().get(0).getStatus());
+        assertEquals(DEFAULT_SECRET_SECRETID, result.getResults().get(0).getSecretId());
+        assertEquals(204, result.getResults().get(1).getStatus());
+        verify(secretHeadRepository, times(1)).save(any(SecretHeadDao.class));
+        verify(secretTombstoneRepository, times(1)).save(any(SecretTombstoneDao.class));
+    }
+
+    @Test
+    void batchSecrets_whenOperationInvalid_thenReportItemStatus() {
+        when(permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.WRITE)).thenReturn(false);
+
+        var result = secretService.batchSecrets(createBatchRequest(
+                createBatchOperation(SecretBatchOperationTypeEnum.UPDATE, DEFAULT_SECRET_SECRETID, createDefaultSecretRequest()),
+                createBatchOperation(SecretBatchOperationTypeEnum.CREATE, null, null),
+                createBatchOperation(null, null, null)
+        ));
+
+        assertEquals(403, result.getResults().get(0).getStatus());
+        assertEquals("SecretAccessDeniedException", result.getResults().get(0).getError());
+        assertEquals(400, result.getResults().get(1).getStatus());
+        assertEquals(400, result.getResults().get(2).getStatus());
+        verify(secretRepository, never()).save(any(SecretDao.class));
+        verify(transactionManager, times(3)).rollback(any());
+    }
+
+    @Test
+    void batchSecrets_whenOneOperationFails_thenRollBackOnlyThatOperation() {
+        when(permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.READ)).thenReturn(true);
+        when(permissionEvaluator.hasAccessToSecret("OTHER-SECRET-SECRETID", PermissionEvaluator.SecretAccessPermission.WRITE)).thenReturn(true);
+        when(mappingService.secretFromRequest(any(SecretRequest.class))).thenReturn(createDefaultSecret());
+        when(mappingService.secretToDao(any(Secret.class))).thenReturn(createDefaultSecretDao());
+        when(secretHeadRepository.incrementVersion("OTHER-SECRET-SECRETID", DEFAULT_SECRET_VERSION)).thenReturn(0);
+        when(secretHeadRepository.existsById("OTHER-SECRET-SECRETID")).thenReturn(true);
+        var secretRequest = createDefaultSecretRequest();
+        secretRequest.setVersion(DEFAULT_SECRET_VERSION);
+
+        var result = secretService.batchSecrets(createBatchRequest(
+                createBatchOperation(SecretBatchOperationTypeEnum.UPDATE, "OTHER-SECRET-SECRETID", secretRequest),
+                createBatchOperation(SecretBatchOperationTypeEnum.DELETE, DEFAULT_SECRET_SECRETID, null)
+        ));
+
+        assertEquals(409, result.getResults().get(0).getStatus());
+        assertEquals(204, result.getResults().get(1).getStatus());
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void batchSecrets_whenOperationFailsUnexpectedly_thenReportItemStatus() {
+        when(permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.READ)).thenReturn(true);
+        when(userSecretRepository.findHeadUserIdsBySecretId("OTHER-SECRET-SECRETID")).thenThrow(new IllegalStateException("Lock wait timeout exceeded"));
+        when(permissionEvaluator.hasAccessToSecret("OTHER-SECRET-SECRETID", PermissionEvaluator.SecretAccessPermission.READ)).thenReturn(true);
+
+        var result = secretService.batchSecrets(createBatchRequest(
+                createBatchOperation(SecretBatchOperationTypeEnum.DELETE, "OTHER-SECRET-SECRETID", null),
+                createBatchOperation(SecretBatchOperationTypeEnum.DELETE, DEFAULT_SECRET_SECRETID, null)
+        ));
+
+        assertEquals(2, result.getResults().size());
+        assertEquals(500, result.getResults().get(0).getStatus());
+        assertEquals("InternalErrorException", result.getResults().get(0).getError());
+        assertEquals(204, result.getResults().get(1).getStatus());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void batchSecrets_whenOperationsMissing_thenThrowException() {
+        assertThrows(InvalidBatchOperationException.class, () -> secretService.batchSecrets(new SecretBatchRequest()));
+    }
+
+    @Test
+    void batchSecrets_whenTooManyOperations_thenThrowException() {
+        var batchProperties = new YapamProperties.BatchProperties();
+        batchProperties.setMaxOperations(1);
+        when(yapamProperties.getBatch()).thenReturn(batchProperties);
+
+        assertThrows(InvalidBatchOperationException.class, () -> secretService.batchSecrets(createBatchRequest(
+                createBatchOperation(SecretBatchOperationTypeEnum.DELETE, DEFAULT_SECRET_SECRETID, null),
+                createBatchOperation(SecretBatchOperationTypeEnum.DELETE, DEFAULT_SECRET_SECRETID, null)
+        )));
+        verify(transactionManager, never()).getTransaction(any());
+    }
+
+    @Test
+    void batchSecrets_whenShareSecret_thenMergeUsersIntoNewVersion() {
+        var secretDao = createDefaultSecretDao();
+        secretDao.setFiles(Collections.emptyList());
+        secretDao.setTags(Collections.emptyList());
+        var secret = createDefaultSecret();
+        when(permissionEvaluator.hasAccessToSecret(DEFAULT_SECRET_SECRETID, PermissionEvaluator.SecretAccessPermission.WRITE)).thenReturn(true);
+        when(secretHeadRepository.findById(DEFAULT_SECRET_SECRETID)).thenReturn(Optional.of(new SecretHeadDao(secretDao)));
+        when(secretHeadRepository.incrementVersion(DEFAULT_SECRET_SECRETID, DEFAULT_SECRET_VERSION)).thenReturn(1);
+        when(mappingService.secretFromRequest(any(SecretRequest.class))).thenReturn(secret);
+        when(mappingService.secretToDao(secret)).thenReturn(secretDao);
+        when(secretRepository.save(any(SecretDao.class))).thenReturn(secretDao);
+        when(mappingService.secretToResponse(any(Secret.class))).thenReturn(createDefaultSecretResponse());
+        var operation = createBatchOperation(SecretBatchOperationTypeEnum.SHARE, DEFAULT_SECRET_SECRETID, null);
+        operation.setUsers(Collections.singletonList(new UserIdSecretPrivilege("OTHER-USER-ID", false)));
+
+        var result = secretService.batchSecrets(createBatchRequest(operation));
+
+        ArgumentCaptor<SecretRequest> captor = ArgumentCaptor.forClass(SecretRequest.class);
+        verify(mappingService).secretFromRequest(captor.capture());
+        assertEquals(200, result.getResults().get(0).getStatus());
+        assertEquals(2, captor.getValue().getUsers().size());
     }
 
     @Test
@@ -68,30 +227,149 @@ class SecretServiceTest extends YapamBaseTest {
 
         assertNotNull(result);
         verify(userSecretRepository, times(1)).saveAll(any());
+        verify(secretHeadRepository, times(1)).save(any(SecretHeadDao.class));
+        verify(changeService, times(1)).recordSecretCreated(secretDao);
     }
 
     @Test
     void deleteSecret() {
+        var tombstone = ArgumentCaptor.forClass(SecretTombstoneDao.class);
+
         secretService.deleteSecret(DEFAULT_SECRET_SECRETID);
 
-        verify(secretRepository, times(1)).deleteBySecretId(DEFAULT_SECRET_SECRETID);
+        verify(secretHeadRepository, times(1)).deleteById(DEFAULT_SECRET_SECRETID);
+        verify(secretTombstoneRepository, times(1)).save(tombstone.capture());
+        assertEquals(DEFAULT_SECRET_SECRETID, tombstone.getValue().getSecretId());
+        verify(changeService, times(1)).recordSecretDeleted(eq(DEFAULT_SECRET_SECRETID), any());
+        verify(secretRepository, never()).deleteVersionsByIdIn(any());
+        verifyZeroInteractions(secretDataRepository);
     }
 
     @Test
     void getAllSecrets() {
         mockSecurityContextHolder();
-        var userDao = createDefaultUserDao();
-        var userSecretDao = createDefaultUserSecretDao();
-        var secretDao = createDefaultSecretDao();
+        var simpleSecrets = Collections.singletonList(createDefaultSimpleSecretProjection());
+        var simpleSecretResponse = createDefaultSimpleSecretResponse();
+        var secretIds = Collections.singletonList(DEFAULT_SECRET_ID);
+        when(paginationService.resolveLimit(null, null)).thenReturn(PaginationService.UNPAGED);
+        when(paginationService.decodeCursor(null)).thenReturn("");
+        when(secretRepository.findLatestKeysByUserId(DEFAULT_USER_ID, Collections.emptyList(), "", PaginationService.UNPAGED + 1)).thenReturn(Collections.singletonList(createDefaultSecretKey()));
+        when(secretRepository.findSimpleSecretsByIdIn(secretIds)).thenReturn(simpleSecrets);
+        when(mappingService.simpleSecretsToResponse(simpleSecrets)).thenReturn(Collections.singletonList(simpleSecretResponse));
+
+        var result = secretService.getAllSecrets(new String[]{""}, null, null);
+
+        assertEquals(1, result.getSecrets().size());
+        assertNull(result.getNext());
+    }
+
+    @Test
+    void getAllSecrets_whenMoreSecretsThanLimit_thenReturnCursor() {
+        mockSecurityContextHolder();
+        var secretKeys = Arrays.asList(createDefaultSecretKey(), new SecretKey("OTHER-SECRET-SECRETID", "OTHER-SECRET-ID"));
+        when(paginationService.resolveLimit(1, null)).thenReturn(1);
+        when(paginationService.decodeCursor(null)).thenReturn("");
+        when(paginationService.encodeCursor(DEFAULT_SECRET_SECRETID)).thenReturn("cursor");
+        when(secretRepository.findLatestKeysByUserId(DEFAULT_USER_ID, Collections.emptyList(), "", 2)).thenReturn(secretKeys);
+        when(mappingService.simpleSecretsToResponse(any())).thenReturn(Collections.singletonList(createDefaultSimpleSecretResponse()));
+
+        var result = secretService.getAllSecrets(new String[]{}, 1, null);
+
+        assertEquals(1, result.getSecrets().size());
+        assertEquals("cursor", result.getNext());
+        verify(secretRepository, times(1)).findSimpleSecretsByIdIn(Collections.singletonList(DEFAULT_SECRET_ID));
+    }
+
+    @Test
+    void getAllSecrets_whenKeywords_thenSearchInDatabase() {
+        mockSecurityContextHolder();
+        var simpleSecrets = Collections.singletonList(createDefaultSimpleSecretProjection());
+        var simpleSecretResponse = createDefaultSimpleSecretResponse();
+        var secretIds = Collections.singletonList(DEFAULT_SECRET_ID);
+        when(paginationService.resolveLimit(null, null)).thenReturn(PaginationService.UNPAGED);
+        when(paginationService.decodeCursor(null)).thenReturn("");
+        when(secretRepository.findLatestKeysByUserId(DEFAULT_USER_ID, Collections.singletonList(DEFAULT_TAG_NAME), "", PaginationService.UNPAGED + 1)).thenReturn(Collections.singletonList(createDefaultSecretKey()));
+        when(secretRepository.findSimpleSecretsByIdIn(secretIds)).thenReturn(simpleSecrets);
+        when(mappingService.simpleSecretsToResponse(simpleSecrets)).thenReturn(Collections.singletonList(simpleSecretResponse));
+
+        var result = secretService.getAllSecrets(new String[]{DEFAULT_TAG_NAME, " "}, null, null);
+
+        assertEquals(1, result.getSecrets().size());
+    }
+
+    @Test
+    void getAllSecrets_whenKeywordsMatchOnlyIgnoringCase_thenFilterResult() {
+        mockSecurityContextHolder();
+        var simpleSecrets = Collections.singletonList(createDefaultSimpleSecretProjection());
+        var secretIds = Collections.singletonList(DEFAULT_SECRET_ID);
+        var keywords = Collections.singletonList(DEFAULT_SECRET_TITLE.toUpperCase());
+        when(paginationService.resolveLimit(null, null)).thenReturn(PaginationService.UNPAGED);
+        when(paginationService.decodeCursor(null)).thenReturn("");
+        when(secretRepository.findLatestKeysByUserId(DEFAULT_USER_ID, keywords, "", PaginationService.UNPAGED + 1)).thenReturn(Collections.singletonList(createDefaultSecretKey()));
+        when(secretRepository.findSimpleSecretsByIdIn(secretIds)).thenReturn(simpleSecrets);
+        when(mappingService.simpleSecretsToResponse(simpleSecrets)).thenReturn(Collections.singletonList(createDefaultSimpleSecretResponse()));
+
+        var result = secretService.getAllSecrets(keywords.toArray(new String[0]), null, null);
+
+        assertTrue(result.getSecrets().isEmpty());
+        assertNull(result.getNext());
+    }
+
+    @Test
+    void getAllSecrets_whenSearchIndexReady_thenSearchInIndex() {
+        mockSecurityContextHolder();
+        var simpleSecrets = Collections.singletonList(createDefaultSimpleSecretProjection());
         var simpleSecretResponse = createDefaultSimpleSecretResponse();
-        when(userRepository.findOneById(DEFAULT_USER_ID)).thenReturn(userDao);
-        when(userSecretRepository.findAllByUserId(DEFAULT_USER_ID)).thenReturn(new HashSet<>(Collections.singletonList(userSecretDao)));
-        when(secretRepository.findFirstBySecretIdOrderByVersionDesc(DEFAULT_SECRET_SECRETID)).thenReturn(secretDao);
-        when(mappingService.secretDaoToSimpleResponse(secretDao)).thenReturn(simpleSecretResponse);
+        var matchingSecretIds = Collections.singletonList(DEFAULT_SECRET_SECRETID);
+        var secretIds = Collections.singletonList(DEFAULT_SECRET_ID);
+        when(paginationService.resolveLimit(null, null)).thenReturn(PaginationService.UNPAGED);
+        when(paginationService.decodeCursor(null)).thenReturn("");
+        when(secretSearchService.isReady()).thenReturn(true);
+        when(secretSearchService.search(DEFAULT_USER_ID, Collections.singletonList(DEFAULT_TAG_NAME), "", PaginationService.UNPAGED + 1)).thenReturn(matchingSecretIds);
+        when(secretRepository.findLatestKeysByUserIdAndSecretIdIn(DEFAULT_USER_ID, matchingSecretIds)).thenReturn(Collections.singletonList(createDefaultSecretKey()));
+        when(secretRepository.findSimpleSecretsByIdIn(secretIds)).thenReturn(simpleSecrets);
+        when(mappingService.simpleSecretsToResponse(simpleSecrets)).thenReturn(Collections.singletonList(simpleSecretResponse));
+
+        var result = secretService.getAllSecrets(new String[]{DEFAULT_TAG_NAME}, null, null);
+
+        assertEquals(1, result.getSecrets().size());
+        verify(secretRepository, never()).findLatestKeysByUserId(anyString(), any(), anyString(), anyInt());
+    }
+
+    @Test
+    void getAllSecrets_whenSearchIndexHitIsStale_thenKeepCursor() {
+        mockSecurityContextHolder();
+        var matchingSecretIds = Arrays.asList(DEFAULT_SECRET_SECRETID, "OTHER-SECRET-SECRETID");
+        when(paginationService.resolveLimit(1, null)).thenReturn(1);
+        when(paginationService.decodeCursor(null)).thenReturn("");
+        when(paginationService.encodeCursor(DEFAULT_SECRET_SECRETID)).thenReturn("cursor");
+        when(secretSearchService.isReady()).thenReturn(true);
+        when(secretSearchService.search(DEFAULT_USER_ID, Collections.singletonList(DEFAULT_TAG_NAME), "", 2)).thenReturn(matchingSecretIds);
+        when(secretRepository.findLatestKeysByUserIdAndSecretIdIn(DEFAULT_USER_ID, matchingSecretIds))
+                .thenReturn(Collections.singletonList(new SecretKey("OTHER-SECRET-SECRETID", "OTHER-SECRET-ID")));
+
+        var result = secretService.getAllSecrets(new String[]{DEFAULT_TAG_NAME}, 1, null);
 
-        var result = secretService.getAllSecrets(new String[]{""});
+        assertTrue(result.getSecrets().isEmpty());
+        assertEquals("cursor", result.getNext());
+        verify(secretRepository, never()).findSimpleSecretsByIdIn(any());
+    }
+
+    @Test
+    void getAllSecretsETag_whenListChanged_thenETagChanges() {
+        mockSecurityContextHolder();
+        var listState = mock(SecretListStateProjection.class);
+        when(listState.getCount()).thenReturn(1L);
+        when(listState.getVersionSum()).thenReturn(1L);
+        when(secretRepository.findListStateByUserId(DEFAULT_USER_ID)).thenReturn(listState);
+
+        var eTag = secretService.getAllSecretsETag(new String[]{""}, null, null);
+        assertEquals(eTag, secretService.getAllSecretsETag(new String[]{""}, null, null));
+        assertNotEquals(eTag, secretService.getAllSecretsETag(new String[]{""}, 1, null));
 
-        assertEquals(1, result.size());
+        when(listState.getVersionSum()).thenReturn(2L);
+
+        assertNotEquals(eTag, secretService.getAllSecretsETag(new String[]{""}, null, null));
     }
 
     @Test
@@ -101,50 +379,213 @@ class SecretServiceTest extends YapamBaseTest {
 
     @Test
     void getSecretById_whenVersionIs0_thenReturnLatestSecret() {
-        var secretDBO = createDefaultSecretDao();
+        var secretDetail = createDefaultSecretDetailProjection();
         var secretResponse = createDefaultSecretResponse();
         var secretVersion = 0;
-        when(secretRepository.findFirstBySecretIdOrderByVersionDesc(DEFAULT_SECRET_SECRETID)).thenReturn(secretDBO);
-        when(mappingService.secretDaoToResponse(secretDBO)).thenReturn(secretResponse);
+        when(secretRepository.findHeadDetailBySecretId(DEFAULT_SECRET_SECRETID)).thenReturn(secretDetail);
+        when(mappingService.secretDetailToResponse(eq(secretDetail), any(), any(), any())).thenReturn(secretResponse);
 
         var result = secretService.getSecretById(DEFAULT_SECRET_SECRETID, secretVersion);
 
         assertNotNull(result);
+        verify(secretRepository, times(1)).findUserPrivilegesById(DEFAULT_SECRET_ID);
+        verify(secretRepository, times(1)).findFilesById(DEFAULT_SECRET_ID);
+        verify(secretRepository, times(1)).findTagNamesById(DEFAULT_SECRET_ID);
+        verify(secretRepository, never()).findById(anyString());
     }
 
     @Test
     void getSecretById_whenVersionIsNot0_thenReturnSecretAtVersion() {
-        var secretDBO = createDefaultSecretDao();
+        var secretDetail = createDefaultSecretDetailProjection();
         var secretResponse = createDefaultSecretResponse();
         var secretVersion = Integer.valueOf(1);
-        when(secretRepository.findFirstBySecretIdAndVersion(DEFAULT_SECRET_SECRETID, secretVersion)).thenReturn(secretDBO);
-        when(mappingService.secretDaoToResponse(secretDBO)).thenReturn(secretResponse);
+        when(secretRepository.findDetailBySecretIdAndVersion(DEFAULT_SECRET_SECRETID, secretVersion)).thenReturn(secretDetail);
+        when(mappingService.secretDetailToResponse(eq(secretDetail), any(), any(), any())).thenReturn(secretResponse);
 
         var result = secretService.getSecretById(DEFAULT_SECRET_SECRETID, secretVersion);
 
         assertEquals(secretVersion, result.getVersion());
     }
 
+    @Test
+    void getSecretETag_whenVersionIs0_thenUseHeadVersion() {
+        var secretDao = createDefaultSecretDao();
+        secretDao.setVersion(3);
+        when(secretHeadRepository.findById(DEFAULT_SECRET_SECRETID)).thenReturn(Optional.of(new SecretHeadDao(secretDao)));
+
+        var result = secretService.getSecretETag(DEFAULT_SECRET_SECRETID, 0);
+
+        assertEquals(DEFAULT_SECRET_SECRETID + ":3", result);
+    }
+
+    @Test
+    void getSecretETag_whenVersionIsNot0_thenSkipDatabase() {
+        var result = secretService.getSecretETag(DEFAULT_SECRET_SECRETID, 2);
+
+        assertEquals(DEFAULT_SECRET_SECRETID + ":2", result);
+        verifyZeroInteractions(secretHeadRepository, secretRepository);
+    }
+
+    @Test
+    void getSecretETag_whenSecretNotFound_thenThrowException() {
+        assertThrows(UnknownSecretException.class, () -> secretService.getSecretETag(DEFAULT_SECRET_ID, 0));
+    }
+
+    @Test
+    void getSecretFacets() {
+        mockSecurityContextHolder();
+        var typeFacet = mock(SecretTypeFacetProjection.class);
+        when(typeFacet.getType()).thenReturn(DEFAULT_SECRET_TYPE);
+        when(typeFacet.getCount()).thenReturn(3L);
+        var tagFacet = mock(SecretTagFacetProjection.class);
+        when(secretRepository.findTypeFacetsByUserId(DEFAULT_USER_ID)).thenReturn(Collections.singletonList(typeFacet));
+        when(secretRepository.findTagFacetsByUserId(DEFAULT_USER_ID)).thenReturn(Collections.singletonList(tagFacet));
+        when(mappingService.secretTagFacetToResponse(tagFacet)).thenReturn(new SecretTagFacetResponse());
+
+        var result = secretService.getSecretFacets();
+
+        assertEquals(SecretTypeEnum.values().length, result.getTypes().size());
+        assertEquals(Long.valueOf(3L), result.getTypes().get(DEFAULT_SECRET_TYPE));
+        assertTrue(result.getTypes().entrySet().stream().filter(entry -> entry.getKey() != DEFAULT_SECRET_TYPE).allMatch(entry -> entry.getValue() == 0L));
+        assertEquals(1, result.getTags().size());
+        verify(secretRepository, never()).findLatestKeysByUserId(anyString(), any(), anyString(), anyInt());
+    }
+
+    @Test
+    void getSecretFacets_whenSearchIndexReady_thenCountInIndex() {
+        mockSecurityContextHolder();
+        Map<SecretTypeEnum, Long> types = Collections.singletonMap(DEFAULT_SECRET_TYPE, 1L);
+        when(secretSearchService.isReady()).thenReturn(true);
+        when(secretSearchService.countTypes(DEFAULT_USER_ID)).thenReturn(types);
+        when(secretSearchService.countTags(DEFAULT_USER_ID)).thenReturn(Collections.singletonList(new SecretTagFacetResponse()));
+
+        var result = secretService.getSecretFacets();
+
+        assertEquals(types, result.getTypes());
+        assertEquals(1, result.getTags().size());
+        verifyZeroInteractions(secretRepository);
+    }
+
+    @Test
+    void getSecretVersions() {
+        var secretVersion = createDefaultSecretVersionProjection();
+        when(secretRepository.findVersionsBySecretId(DEFAULT_SECRET_SECRETID)).thenReturn(Collections.singletonList(secretVersion));
+        when(mappingService.secretVersionToResponse(secretVersion)).thenReturn(new SecretVersionResponse());
+
+        var result = secretService.getSecretVersions(DEFAULT_SECRET_SECRETID);
+
+        assertEquals(1, result.getVersions().size());
+        verify(secretRepository, never()).findDetailBySecretIdAndVersion(anyString(), any());
+    }
+
+    @Test
+    void streamAllSecrets_whenMoreSecretsThanMaxLimit_thenFetchInChunks() {
+        mockSecurityContextHolder();
+        var firstPage = createDefaultSimpleSecretResponse();
+        var secondPage = createDefaultSimpleSecretResponse();
+        secondPage.setSecretId("OTHER-SECRET-SECRETID");
+        when(paginationService.getMaxLimit()).thenReturn(1);
+        when(paginationService.resolveLimit(eq(1), any())).thenReturn(1);
+        when(paginationService.decodeCursor(null)).thenReturn("");
+        when(paginationService.decodeCursor("cursor")).thenReturn(DEFAULT_SECRET_SECRETID);
+        when(paginationService.encodeCursor(DEFAULT_SECRET_SECRETID)).thenReturn("cursor");
+        var otherSecretKey = new SecretKey("OTHER-SECRET-SECRETID", "OTHER-SECRET-ID");
+        when(secretRepository.findLatestKeysByUserId(DEFAULT_USER_ID, Collections.emptyList(), "", 2)).thenReturn(Arrays.asList(createDefaultSecretKey(), otherSecretKey));
+        when(secretRepository.findLatestKeysByUserId(DEFAULT_USER_ID, Collections.emptyList(), DEFAULT_SECRET_SECRETID, 2)).thenReturn(Collections.singletonList(otherSecretKey));
+        when(mappingService.simpleSecretsToResponse(any())).thenReturn(Collections.singletonList(firstPage), Collections.singletonList(secondPage));
+        List<SimpleSecretResponse> secrets = new ArrayList<>();
+
+        var result = secretService.streamAllSecrets(new String[]{}, null, null, secrets::add);
+
+        assertNull(result);
+        assertEquals(2, secrets.size());
+        assertEquals("OTHER-SECRET-SECRETID", secrets.get(1).getSecretId());
+        verify(secretRepository, times(2)).findSimpleSecretsByIdIn(any());
+    }
+
+    @Test
+    void streamAllSecrets_whenLimitReached_thenReturnCursor() {
+        mockSecurityContextHolder();
+        when(paginationService.getMaxLimit()).thenReturn(1000);
+        when(paginationService.resolveLimit(1, null)).thenReturn(1);
+        when(paginationService.decodeCursor(null)).thenReturn("");
+        when(paginationService.encodeCursor(DEFAULT_SECRET_SECRETID)).thenReturn("cursor");
+        when(secretRepository.findLatestKeysByUserId(DEFAULT_USER_ID, Collections.emptyList(), "", 2)).thenReturn(Arrays.asList(createDefaultSecretKey(), new SecretKey("OTHER-SECRET-SECRETID", "OTHER-SECRET-ID")));
+        when(mappingService.simpleSecretsToResponse(any())).thenReturn(Collections.singletonList(createDefaultSimpleSecretResponse()));
+        List<SimpleSecretResponse> secrets = new ArrayList<>();
+
+        var result = secretService.streamAllSecrets(new String[]{}, 1, null, secrets::add);
+
+        assertEquals("cursor", result);
+        assertEquals(1, secrets.size());
+        verify(secretRepository, times(1)).findLatestKeysByUserId(anyString(), any(), anyString(), anyInt());
+    }
+
     @Test
     void updateSecret() {
         var secretRequest = createDefaultSecretRequest();
         var secret = createDefaultSecret();
         secret.setFiles(Collections.singletonList(createDefaultFile()));
         var secretDBO = createDefaultSecretDao();
-        var secretVersionProjection = projectionFactory.createProjection(SecretVersionProjection.class);
-        secretVersionProjection.setVersion(0);
-        secretDBO.setVersion(1);
+        secretDBO.setVersion(2);
         when(mappingService.secretFromRequest(secretRequest)).thenReturn(secret);
-        when(secretRepository.findFirstDistinctVersionBySecretIdOrderByVersionDesc(anyString())).thenReturn(secretVersionProjection);
+        when(secretHeadRepository.findVersionBySecretId(DEFAULT_SECRET_SECRETID)).thenReturn(1);
+        when(secretHeadRepository.incrementVersion(DEFAULT_SECRET_SECRETID, 1)).thenReturn(1);
         when(mappingService.secretToDao(any(Secret.class))).thenReturn(secretDBO);
+        when(secretRepository.save(secretDBO)).thenReturn(secretDBO);
+
+        secretService.updateSecret(DEFAULT_SECRET_SECRETID, secretRequest, null);
+
+        assertEquals(Integer.valueOf(2), secret.getVersion());
+        verify(secretHeadRepository, times(1)).updateHead(DEFAULT_SECRET_SECRETID, secretDBO);
+        verify(changeService, times(1)).recordSecretUpdated(eq(secretDBO), any());
+    }
+
+    @Test
+    void updateSecret_whenIfMatchGiven_thenCompareAgainstIt() {
+        var secretRequest = createDefaultSecretRequest();
+        var secret = createDefaultSecret();
+        when(mappingService.secretFromRequest(secretRequest)).thenReturn(secret);
+        when(secretHeadRepository.incrementVersion(DEFAULT_SECRET_SECRETID, 3)).thenReturn(1);
+        when(mappingService.secretToDao(any(Secret.class))).thenReturn(createDefaultSecretDao());
+        when(secretRepository.save(any(SecretDao.class))).thenReturn(createDefaultSecretDao());
+
+        secretService.updateSecret(DEFAULT_SECRET_SECRETID, secretRequest, "\"" + DEFAULT_SECRET_SECRETID + ":3\"");
+
+        assertEquals(Integer.valueOf(4), secret.getVersion());
+        verify(secretHeadRepository, never()).findVersionBySecretId(anyString());
+    }
+
+    @Test
+    void updateSecret_whenVersionOutdated_thenThrowConflictBeforeWriting() {
+        var secretRequest = createDefaultSecretRequest();
+        secretRequest.setVersion(1);
+        when(mappingService.secretFromRequest(secretRequest)).thenReturn(createDefaultSecret());
+        when(mappingService.secretToDao(any(Secret.class))).thenReturn(createDefaultSecretDao());
+        when(secretHeadRepository.incrementVersion(DEFAULT_SECRET_SECRETID, 1)).thenReturn(0);
+        when(secretHeadRepository.existsById(DEFAULT_SECRET_SECRETID)).thenReturn(true);
 
-        secretService.updateSecret(DEFAULT_SECRET_SECRETID, secretRequest);
+        assertThrows(SecretVersionConflictException.class, () -> secretService.updateSecret(DEFAULT_SECRET_SECRETID, secretRequest, null));
+        verify(secretRepository, never()).save(any(SecretDao.class));
+    }
 
-        ArgumentCaptor<SecretDao> captor = ArgumentCaptor.forClass(SecretDao.class);
-        verify(secretRepository).save(captor.capture());
-        secretDBO = captor.getValue();
+    @Test
+    void updateSecret_whenRequestInvalid_thenKeepVersion() {
+        var secretRequest = createDefaultSecretRequest();
+        secretRequest.setVersion(1);
+        when(mappingService.secretFromRequest(secretRequest)).thenThrow(new UnknownReferenceException(Collections.singletonList("OTHER-USER-ID"), Collections.emptyList(), Collections.emptyList()));
 
-        assertEquals(Integer.valueOf(1), secretDBO.getVersion());
+        assertThrows(UnknownReferenceException.class, () -> secretService.updateSecret(DEFAULT_SECRET_SECRETID, secretRequest, null));
+        verify(secretHeadRepository, never()).incrementVersion(anyString(), anyInt());
+        verify(secretRepository, never()).save(any(SecretDao.class));
+    }
+
+    @Test
+    void updateSecret_whenIfMatchForOtherSecret_thenThrowConflict() {
+        var secretRequest = createDefaultSecretRequest();
+
+        assertThrows(SecretVersionConflictException.class, () -> secretService.updateSecret(DEFAULT_SECRET_SECRETID, secretRequest, "\"other:1\""));
+        verify(secretHeadRepository, never()).incrementVersion(anyString(), anyInt());
     }
 
     @Test
@@ -152,6 +593,20 @@ class SecretServiceTest extends YapamBaseTest {
         var secretRequest = createDefaultSecretRequest();
         var secret = createDefaultSecret();
         when(mappingService.secretFromRequest(secretRequest)).thenReturn(secret);
-        assertThrows(UnknownSecretException.class, () -> secretService.updateSecret(DEFAULT_SECRET_ID, secretRequest));
+        assertThrows(UnknownSecretException.class, () -> secretService.updateSecret(DEFAULT_SECRET_ID, secretRequest, null));
+    }
+
+    private SecretBatchRequest createBatchRequest(SecretBatchOperation... operations) {
+        var secretBatchRequest = new SecretBatchRequest();
+        secretBatchRequest.setOperations(Arrays.asList(operations));
+        return secretBatchRequest;
+    }
+
+    private SecretBatchOperation createBatchOperation(SecretBatchOperationTypeEnum type, String secretId, SecretRequest secretRequest) {
+        var operation = new SecretBatchOperation();
+        operation.setType(type);
+        operation.setSecretId(secretId);
+        operation.setSecret(secretRequest);
+        return operation;
     }
 }
@@ -0,0 +1,113 @@
+package app.yapam.secret;
+
+import app.yapam.YapamBaseTest;
+import app.yapam.change.ChangeService;
+import app.yapam.common.repository.*;
+import app.yapam.common.service.FilterEvaluator;
+import app.yapam.common.service.MappingService;
+import app.yapam.common.service.PaginationService;
+import app.yapam.common.service.PermissionEvaluator;
+import app.yapam.common.service.SecretSearchService;
+import app.yapam.file.FileService;
+import app.yapam.secret.model.request.SecretRequest;
+import app.yapam.secret.model.request.UserIdSecretPrivilege;
+import app.yapam.tag.TagService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(SpringExtension.class)
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:yapam;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.database=h2",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.liquibase.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SecretService.class, MappingService.class, SecretDataConverter.class, PaginationService.class, FilterEvaluator.class})
+@ActiveProfiles("test")
+class SecretServiceUpdateTest extends YapamBaseTest {
+
+    @Autowired private SecretService secretService;
+    @Autowired private TestEntityManager testEntityManager;
+    @MockBean private FileService fileService;
+    @MockBean private TagService tagService;
+    @MockBean private ChangeService changeService;
+    @MockBean private PermissionEvaluator permissionEvaluator;
+    @MockBean private SecretSearchService secretSearchService;
+
+    @BeforeEach
+    void beforeEach() {
+        mockSecurityContextHolder();
+
+        var userDao = new UserDao();
+        userDao.setId(DEFAULT_USER_ID);
+        userDao.setName(DEFAULT_USER_NAME);
+        userDao.setEmail(DEFAULT_USER_EMAIL);
+        userDao.setLocale(DEFAULT_USER_LOCALE);
+        userDao.setCreationDate(DEFAULT_USER_CREATION_DATE);
+        userDao = testEntityManager.persist(userDao);
+
+        var secretDao = new SecretDao();
+        secretDao.setSecretId(DEFAULT_SECRET_SECRETID);
+        secretDao.setTitle(DEFAULT_SECRET_TITLE);
+        secretDao.setType(DEFAULT_SECRET_TYPE);
+        secretDao.setVersion(DEFAULT_SECRET_VERSION);
+        secretDao.setContent(testEntityManager.persist(new SecretDataDao(DEFAULT_SECRET_DATA_HASH, DEFAULT_SECRET_DATA)));
+        secretDao = testEntityManager.persist(secretDao);
+        testEntityManager.persist(new UserSecretDao(secretDao, userDao, true));
+        testEntityManager.persist(new SecretHeadDao(secretDao));
+        testEntityManager.flush();
+    }
+
+    @Test
+    void updateSecret_whenContentLoaded_thenPersistNextVersion() {
+        var secretResponse = secretService.updateSecret(DEFAULT_SECRET_SECRETID, createSecretRequest(), null);
+
+        assertEquals(DEFAULT_SECRET_VERSION + 1, secretResponse.getVersion());
+        assertHead(DEFAULT_SECRET_VERSION + 1);
+    }
+
+    @Test
+    void updateSecret_whenContentNotLoaded_thenPersistNextVersion() {
+        testEntityManager.clear();
+
+        var secretResponse = secretService.updateSecret(DEFAULT_SECRET_SECRETID, createSecretRequest(), null);
+
+        assertEquals(DEFAULT_SECRET_VERSION + 1, secretResponse.getVersion());
+        assertHead(DEFAULT_SECRET_VERSION + 1);
+    }
+
+    private void assertHead(Integer version) {
+        testEntityManager.flush();
+        testEntityManager.clear();
+        var secretHeadDao = testEntityManager.find(SecretHeadDao.class, DEFAULT_SECRET_SECRETID);
+        assertEquals(version, secretHeadDao.getVersion());
+        assertEquals(version, secretHeadDao.getSecret().getVersion());
+        assertEquals(DEFAULT_SECRET_DATA, secretHeadDao.getSecret().getContent().getData());
+    }
+
+    private SecretRequest createSecretRequest() {
+        var secretRequest = new SecretRequest();
+        secretRequest.setTitle(DEFAULT_SECRET_TITLE);
+        secretRequest.setData(DEFAULT_SECRET_DATA);
+        secretRequest.setType(DEFAULT_SECRET_TYPE);
+        secretRequest.setUsers(Collections.singletonList(new UserIdSecretPrivilege(DEFAULT_USER_ID, true)));
+        secretRequest.setFiles(Collections.emptyList());
+        secretRequest.setTags(Collections.emptyList());
+        secretRequest.setVersion(DEFAULT_SECRET_VERSION);
+        return secretRequest;
+    }
+}
@@ -6,21 +6,24 @@ import app.yapam.common.repository.SecretRepository;
 import app.yapam.common.repository.TagDao;
 import app.yapam.common.repository.TagRepository;
 import app.yapam.common.service.MappingService;
+import app.yapam.common.service.PaginationService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
@@ -32,6 +35,7 @@ class TagServiceTest extends YapamBaseTest {
     @MockBean private TagRepository tagRepository;
     @MockBean private SecretRepository secretRepository;
     @MockBean private MappingService mappingService;
+    @MockBean private PaginationService paginationService;
 
     @Test
     void attachSecretToTags() {
@@ -73,14 +77,34 @@ class TagServiceTest extends YapamBaseTest {
 
     @Test
     void getTags() {
-        var tagDao = createDefaultTagDao();
+        var tag = createDefaultTagProjection();
         var tagResponse = createDefaultTagResponse();
-        when(tagRepository.findAll()).thenReturn(Collections.singletonList(tagDao));
-        when(mappingService.tagDaoToResponse(tagDao)).thenReturn(tagResponse);
+        when(paginationService.resolveLimit(null, null)).thenReturn(PaginationService.UNPAGED);
+        when(paginationService.decodeCursor(null)).thenReturn("");
+        when(tagRepository.findTagsByNameGreaterThan(eq(""), any(Pageable.class))).thenReturn(Collections.singletonList(tag));
+        when(mappingService.tagToResponse(tag)).thenReturn(tagResponse);
 
-        var result = tagService.getTags();
+        var result = tagService.getTags(null, null);
 
         assertEquals(DEFAULT_TAG_ID, result.getTags().get(0).getId());
         assertEquals(DEFAULT_TAG_NAME, result.getTags().get(0).getName());
+        assertNull(result.getNext());
+    }
+
+    @Test
+    void getTags_whenMoreTagsThanLimit_thenReturnCursor() {
+        var tag = createDefaultTagProjection();
+        var otherTag = createDefaultTagProjection();
+        when(otherTag.getName()).thenReturn("othertag");
+        when(paginationService.resolveLimit(1, null)).thenReturn(1);
+        when(paginationService.decodeCursor(null)).thenReturn("");
+        when(paginationService.encodeCursor(DEFAULT_TAG_NAME)).thenReturn("cursor");
+        when(tagRepository.findTagsByNameGreaterThan(eq(""), any(Pageable.class))).thenReturn(Arrays.asList(tag, otherTag));
+        when(mappingService.tagToResponse(tag)).thenReturn(createDefaultTagResponse());
+
+        var result = tagService.getTags(1, null);
+
+        assertEquals(1, result.getTags().size());
+        assertEquals("cursor", result.getNext());
     }
 }
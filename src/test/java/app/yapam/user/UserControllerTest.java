@@ -1,21 +1,30 @@
 package app.yapam.user;
 
 import app.yapam.YapamBaseTest;
+import app.yapam.common.service.JsonListWriter;
+import app.yapam.user.model.response.SimpleUserResponse;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(UserController.class)
+@Import(JsonListWriter.class)
 @ActiveProfiles("test")
 class UserControllerTest extends YapamBaseTest {
 
@@ -49,6 +58,23 @@ class UserControllerTest extends YapamBaseTest {
                 .andExpect(status().is2xxSuccessful());
     }
 
+    @Test
+    void whenStreamAllUsers_thenWriteSameFormatAsGetAllUsers() throws Exception {
+        when(userService.streamAllUsers(any(), any(), any())).thenAnswer(invocation -> {
+            Consumer<SimpleUserResponse> consumer = invocation.getArgument(2);
+            consumer.accept(createDefaultSimpleUserResponse());
+            return null;
+        });
+
+        mvc.perform(
+                get(API_USERS_BASE_URL)
+                        .param("stream", "true")
+        )
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(content().json("{\"users\":[{\"id\":\"" + DEFAULT_USER_ID + "\",\"name\":\"" + DEFAULT_USER_NAME +
+                        "\",\"email\":\"" + DEFAULT_USER_EMAIL + "\",\"publicKey\":\"" + DEFAULT_USER_PUBLIC_KEY + "\"}]}", true));
+    }
+
     @Test
     void whenGetCurrentUser_thenReturnSuccessful() throws Exception {
         mvc.perform(
@@ -6,19 +6,27 @@ import app.yapam.common.repository.UserDao;
 import app.yapam.common.repository.UserRepository;
 import app.yapam.common.service.EmailService;
 import app.yapam.common.service.MappingService;
+import app.yapam.common.service.PaginationService;
 import app.yapam.user.model.User;
+import app.yapam.user.model.response.SimpleUserResponse;
 import app.yapam.user.model.response.SimpleUserResponseWrapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
@@ -30,6 +38,7 @@ class UserServiceTest extends YapamBaseTest {
     @MockBean private UserRepository userRepository;
     @MockBean private MappingService mappingService;
     @MockBean private EmailService emailService;
+    @MockBean private PaginationService paginationService;
 
     @Test
     void createUser() {
@@ -51,12 +60,32 @@ class UserServiceTest extends YapamBaseTest {
 
     @Test
     void getAllUsers() {
-        var userDBO = createDefaultUserDao();
-        when(userRepository.findAll()).thenReturn(Collections.singletonList(userDBO));
+        var simpleUser = createDefaultSimpleUserProjection();
+        when(paginationService.resolveLimit(null, null)).thenReturn(PaginationService.UNPAGED);
+        when(paginationService.decodeCursor(null)).thenReturn("");
+        when(userRepository.findSimpleUsersByIdGreaterThan(eq(""), any(Pageable.class))).thenReturn(Collections.singletonList(simpleUser));
+        when(mappingService.simpleUserToResponse(simpleUser)).thenReturn(createDefaultSimpleUserResponse());
+
+        SimpleUserResponseWrapper users = userService.getAllUsers(null, null);
+
+        assertEquals(1, users.getUsers().size());
+        assertNull(users.getNext());
+    }
+
+    @Test
+    void getAllUsers_whenMoreUsersThanLimit_thenReturnCursor() {
+        var simpleUser = createDefaultSimpleUserProjection();
+        var otherSimpleUser = createDefaultSimpleUserProjection();
+        when(otherSimpleUser.getId()).thenReturn("OTHER-USER-ID");
+        when(paginationService.resolveLimit(1, "after")).thenReturn(1);
+        when(paginationService.decodeCursor("after")).thenReturn("after-id");
+        when(paginationService.encodeCursor(DEFAULT_USER_ID)).thenReturn("cursor");
+        when(userRepository.findSimpleUsersByIdGreaterThan(eq("after-id"), any(Pageable.class))).thenReturn(Arrays.asList(simpleUser, otherSimpleUser));
 
-        SimpleUserResponseWrapper users = userService.getAllUsers();
+        SimpleUserResponseWrapper users = userService.getAllUsers(1, "after");
 
         assertEquals(1, users.getUsers().size());
+        assertEquals("cursor", users.getNext());
     }
 
     @Test
@@ -74,10 +103,10 @@ class UserServiceTest extends YapamBaseTest {
 
     @Test
     void getSimpleUserById() {
-        var userDBO = createDefaultUserDao();
+        var simpleUser = createDefaultSimpleUserProjection();
         var simpleUserResponse = createDefaultSimpleUserResponse();
-        when(userRepository.findOneById(DEFAULT_USER_ID)).thenReturn(userDBO);
-        when(mappingService.userDaoToSimpleResponse(userDBO)).thenReturn(simpleUserResponse);
+        when(userRepository.findSimpleUserById(DEFAULT_USER_ID)).thenReturn(simpleUser);
+        when(mappingService.simpleUserToResponse(simpleUser)).thenReturn(simpleUserResponse);
 
         var result = userService.getSimpleUserById(DEFAULT_USER_ID);
 
@@ -88,4 +117,26 @@ class UserServiceTest extends YapamBaseTest {
     void getSimpleUserById_whenUserNotFound_thenThrowException() {
         assertThrows(UnknownUserException.class, () ->userService.getSimpleUserById(DEFAULT_USER_ID));
     }
+
+    @Test
+    void streamAllUsers_whenMoreUsersThanMaxLimit_thenFetchInChunks() {
+        var simpleUser = createDefaultSimpleUserProjection();
+        var otherSimpleUser = createDefaultSimpleUserProjection();
+        when(otherSimpleUser.getId()).thenReturn("OTHER-USER-ID");
+        when(paginationService.getMaxLimit()).thenReturn(1);
+        when(paginationService.resolveLimit(eq(1), any())).thenReturn(1);
+        when(paginationService.decodeCursor(null)).thenReturn("");
+        when(paginationService.decodeCursor("cursor")).thenReturn(DEFAULT_USER_ID);
+        when(paginationService.encodeCursor(DEFAULT_USER_ID)).thenReturn("cursor");
+        when(userRepository.findSimpleUsersByIdGreaterThan(eq(""), any(Pageable.class))).thenReturn(Arrays.asList(simpleUser, otherSimpleUser));
+        when(userRepository.findSimpleUsersByIdGreaterThan(eq(DEFAULT_USER_ID), any(Pageable.class))).thenReturn(Collections.singletonList(otherSimpleUser));
+        when(mappingService.simpleUserToResponse(any())).thenReturn(createDefaultSimpleUserResponse());
+        List<SimpleUserResponse> users = new ArrayList<>();
+
+        var result = userService.streamAllUsers(null, null, users::add);
+
+        assertNull(result);
+        assertEquals(2, users.size());
+        verify(userRepository, times(2)).findSimpleUsersByIdGreaterThan(any(), any(Pageable.class));
+    }
 }